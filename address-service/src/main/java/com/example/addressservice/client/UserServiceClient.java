@@ -1,12 +1,17 @@
 package com.example.addressservice.client;
 
 import com.example.addressservice.dto.UserDto;
+import com.example.httpclient.ServiceCallGuard;
+import com.example.httpclient.ServiceCallGuards;
+import com.example.httpclient.ServiceUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
@@ -18,23 +23,27 @@ public class UserServiceClient {
     private static final Logger logger = LoggerFactory.getLogger(UserServiceClient.class);
     
     private final RestTemplate restTemplate;
+    private final ServiceCallGuard userServiceGuard;
     private final String userServiceBaseUrl;
     
-    public UserServiceClient(RestTemplate restTemplate, 
+    public UserServiceClient(@Qualifier("userServiceRestTemplate") RestTemplate restTemplate,
+                           ServiceCallGuards serviceCallGuards,
                            @Value("${app.user-service.base-url:http://localhost:8082}") String userServiceBaseUrl) {
         this.restTemplate = restTemplate;
+        this.userServiceGuard = serviceCallGuards.forDestination("user-service");
         this.userServiceBaseUrl = userServiceBaseUrl;
     }
     
     /**
-     * Get user by ID from User Service
+     * Get user by ID from User Service. Empty only when User Service says the user does not exist;
+     * throws when User Service cannot answer, so event processing is retried instead of skipped.
      */
     public Optional<UserDto> getUserById(Long userId) {
         try {
             String url = userServiceBaseUrl + "/api/users/" + userId;
             logger.debug("Fetching user by ID: {}", userId);
             
-            ResponseEntity<UserDto> response = restTemplate.getForEntity(url, UserDto.class);
+            ResponseEntity<UserDto> response = userServiceGuard.call(() -> restTemplate.getForEntity(url, UserDto.class));
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 logger.debug("Successfully fetched user: {}", response.getBody().getUsername());
@@ -44,9 +53,16 @@ public class UserServiceClient {
                 return Optional.empty();
             }
             
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.warn("User not found with ID: {}", userId);
+            return Optional.empty();
+        } catch (ServiceUnavailableException e) {
+            // Circuit open or bulkhead full: fail fast without waiting on User Service
+            logger.warn("User Service unavailable, cannot check user {}: {}", userId, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error fetching user by ID: {}", userId, e);
-            return Optional.empty();
+            throw new RuntimeException("User Service unavailable: failed to fetch user " + userId, e);
         }
     }
     
@@ -64,7 +80,7 @@ public class UserServiceClient {
         try {
             String url = userServiceBaseUrl + "/actuator/health";
             logger.debug("Checking User Service health at: {}", url);
-            return restTemplate.getForEntity(url, Map.class);
+            return userServiceGuard.call(() -> restTemplate.getForEntity(url, Map.class));
         } catch (Exception e) {
             logger.error("Error checking User Service health", e);
             throw new RuntimeException("Failed to check User Service health", e);
@@ -0,0 +1,26 @@
+package com.example.addressservice.config;
+
+import com.example.healthmonitor.HealthMonitor;
+import com.example.addressservice.service.DependencyHealthChecks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class HealthConfig {
+    
+    // Dependencies are probed in the background; /health serves the latest results
+    @Bean
+    public HealthMonitor healthMonitor(DependencyHealthChecks checks,
+                                       @Value("${app.health.database-interval:10000}") long databaseInterval,
+                                       @Value("${app.health.kafka-interval:15000}") long kafkaInterval,
+                                       @Value("${app.health.user-service-interval:15000}") long userServiceInterval) {
+        return new HealthMonitor("address-service", "1.0.0")
+                .register("database", Duration.ofMillis(databaseInterval), checks::checkDatabase)
+                .register("kafka", Duration.ofMillis(kafkaInterval), checks::checkKafka)
+                .register("userService", Duration.ofMillis(userServiceInterval), checks::checkUserService)
+                .start();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.addressservice.config;
+
+import com.example.httpclient.ServiceRestTemplateFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class HttpClientConfig {
+    
+    // Pool and timeouts from app.http-client.services.user-service
+    @Bean
+    public RestTemplate userServiceRestTemplate(ServiceRestTemplateFactory serviceRestTemplateFactory) {
+        return serviceRestTemplateFactory.create("user-service");
+    }
+    
+    // JWKS fetches, pool and timeouts from app.http-client.services.auth-service
+    @Bean
+    public RestTemplate authServiceRestTemplate(ServiceRestTemplateFactory serviceRestTemplateFactory) {
+        return serviceRestTemplateFactory.create("auth-service");
+    }
+}
@@ -1,18 +1,11 @@
 package com.example.addressservice.config;
 
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.retry.annotation.EnableRetry;
-import org.springframework.web.client.RestTemplate;
 
 @Configuration
 @EnableRetry
 public class RetryConfig {
     // This configuration enables Spring Retry functionality
     // The @Retryable annotations in KafkaConsumerService will now work
-    
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
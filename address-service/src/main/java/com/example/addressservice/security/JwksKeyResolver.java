@@ -0,0 +1,111 @@
+package com.example.addressservice.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches auth-service's published signing keys by kid so tokens are verified locally.
+ *
+ * The key set is fetched again when a token names a kid we have not seen, which is how a newly
+ * rotated key is picked up, and when the cached set is older than the cache TTL, which is how
+ * retired keys are dropped. Unknown-kid refetches are throttled so forged kids cannot turn every
+ * request into a call to auth-service.
+ */
+@Component
+public class JwksKeyResolver {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyResolver.class);
+    
+    private final RestTemplate restTemplate;
+    private final String jwksUrl;
+    private final long cacheTtl;
+    private final long unknownKidCooldown;
+    
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+    private volatile long fetchedAt;
+    
+    public JwksKeyResolver(@Qualifier("authServiceRestTemplate") RestTemplate restTemplate,
+                           @Value("${app.auth-service.jwks-url}") String jwksUrl,
+                           @Value("${app.auth-service.jwks-cache-ttl:3600000}") long cacheTtl,
+                           @Value("${app.auth-service.jwks-unknown-kid-cooldown:30000}") long unknownKidCooldown) {
+        this.restTemplate = restTemplate;
+        this.jwksUrl = jwksUrl;
+        this.cacheTtl = cacheTtl;
+        this.unknownKidCooldown = unknownKidCooldown;
+    }
+    
+    /**
+     * Public key for a kid, or null if auth-service does not publish it
+     */
+    public PublicKey getKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        
+        PublicKey key = keys.get(kid);
+        if (needsRefresh(key)) {
+            key = refreshFor(kid);
+        }
+        return key;
+    }
+    
+    /**
+     * Checked again under the refresh lock, so requests that queued behind a fetch use its result
+     * instead of each fetching the JWKS in turn
+     */
+    private synchronized PublicKey refreshFor(String kid) {
+        PublicKey key = keys.get(kid);
+        if (needsRefresh(key)) {
+            refresh();
+            key = keys.get(kid);
+        }
+        return key;
+    }
+    
+    private boolean needsRefresh(PublicKey key) {
+        long age = System.currentTimeMillis() - fetchedAt;
+        return (key == null && age > unknownKidCooldown) || age > cacheTtl;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public synchronized void refresh() {
+        try {
+            Map<String, Object> jwks = restTemplate.getForObject(jwksUrl, Map.class);
+            List<Map<String, Object>> entries = jwks != null
+                    ? (List<Map<String, Object>>) jwks.get("keys") : Collections.emptyList();
+            
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            Map<String, PublicKey> loaded = new HashMap<>();
+            for (Map<String, Object> jwk : entries) {
+                if (!"RSA".equals(jwk.get("kty")) || jwk.get("kid") == null) {
+                    continue;
+                }
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n")));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e")));
+                loaded.put((String) jwk.get("kid"), keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+            
+            keys = Collections.unmodifiableMap(loaded);
+            logger.debug("Loaded {} signing keys from {}", loaded.size(), jwksUrl);
+        } catch (Exception e) {
+            // Keep serving the keys we already have
+            logger.error("Failed to fetch signing keys from {}: {}", jwksUrl, e.getMessage());
+        } finally {
+            fetchedAt = System.currentTimeMillis();
+        }
+    }
+}
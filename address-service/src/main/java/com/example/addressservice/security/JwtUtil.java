@@ -1,16 +1,19 @@
 package com.example.addressservice.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -18,15 +21,31 @@ public class JwtUtil {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
     
-    @Value("${jwt.secret}")
-    private String secret;
-    
-    @Value("${jwt.expiration:86400000}") // 24 hours default
-    private Long expiration;
+    private final JwtParser jwtParser;
+    private final Timer validVerifications;
+    private final Timer invalidVerifications;
+    
+    public JwtUtil(JwksKeyResolver jwksKeyResolver, MeterRegistry meterRegistry) {
+        // Tokens are signed by auth-service with rotating RSA keys, looked up by kid from its JWKS
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return jwksKeyResolver.getKey(header.getKeyId());
+                    }
+                })
+                .build();
+        // Registered up front so the per-request path only records
+        this.validVerifications = verificationTimer(meterRegistry, "valid");
+        this.invalidVerifications = verificationTimer(meterRegistry, "invalid");
+    }
     
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Signature verification and parsing of access tokens")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
     
     public String extractUsername(String token) {
@@ -69,13 +88,14 @@ public class JwtUtil {
     }
     
     private Claims extractAllClaims(String token) {
+        long start = System.nanoTime();
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
+            Claims claims = jwtParser.parseSignedClaims(token)
                     .getPayload();
+            validVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
         } catch (Exception e) {
+            invalidVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             logger.error("Error extracting claims from token", e);
             throw e;
         }
@@ -109,33 +129,4 @@ public class JwtUtil {
             return false;
         }
     }
-    
-    public String generateToken(String username, Long userId, String email) {
-        return Jwts.builder()
-                .subject(username)
-                .claim("userId", userId)
-                .claim("email", email)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
-                .compact();
-    }
-    
-    public String refreshToken(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            String username = claims.getSubject();
-            Long userId = extractUserId(token);
-            String email = extractEmail(token);
-            
-            return generateToken(username, userId, email);
-        } catch (Exception e) {
-            logger.error("Error refreshing token", e);
-            throw new RuntimeException("Unable to refresh token", e);
-        }
-    }
-    
-    public Long getExpirationTime() {
-        return expiration;
-    }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import com.example.addressservice.repository.ProcessedEventRepository;
 import com.example.addressservice.repository.FailedEventRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +36,7 @@ public class KafkaConsumerService {
     private final FailedEventRepository failedEventRepository;
     private final AddressService addressService;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
     
     // Retry configuration constants
     private static final int MAX_RETRY_ATTEMPTS = 3;
@@ -44,11 +47,13 @@ public class KafkaConsumerService {
     public KafkaConsumerService(ProcessedEventRepository processedEventRepository,
                                FailedEventRepository failedEventRepository,
                                AddressService addressService,
-                               ObjectMapper objectMapper) {
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
         this.processedEventRepository = processedEventRepository;
         this.failedEventRepository = failedEventRepository;
         this.addressService = addressService;
         this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
     }
     
     @KafkaListener(topics = "user-events", groupId = "address-service-group")
@@ -351,6 +356,11 @@ public class KafkaConsumerService {
             failedEvent.setRetryCount(MAX_RETRY_ATTEMPTS);
             
             failedEventRepository.save(failedEvent);
+            Counter.builder("kafka.dlq.events")
+                    .description("Events that failed processing after retries and were stored as failed")
+                    .tag("eventType", eventType)
+                    .register(meterRegistry)
+                    .increment();
             
             logger.error("Event sent to dead letter queue - EventId: {}, Topic: {}, Partition: {}, Offset: {}", 
                         failedEvent.getEventId(), topic, partition, offset);
@@ -1,5 +1,7 @@
 package com.example.authservice.config;
 
+import com.example.authservice.service.TokenBlacklistService;
+import com.example.authservice.service.UserTokenEpochService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -10,9 +12,10 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.web.client.RestTemplate;
 
 @Configuration
 @EnableCaching
@@ -69,13 +72,22 @@ public class RedisConfig {
     }
     
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        return RedisCacheManager.builder(connectionFactory)
-                .build();
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TokenBlacklistService tokenBlacklistService,
+                                                                       UserTokenEpochService userTokenEpochService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        
+        // Token revocations published by other instances, used to refresh the local near-cache
+        container.addMessageListener(tokenBlacklistService, new ChannelTopic(tokenBlacklistService.getChannel()));
+        // Logout-all epochs written by other instances
+        container.addMessageListener(userTokenEpochService, new ChannelTopic(userTokenEpochService.getChannel()));
+        return container;
     }
     
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+        return RedisCacheManager.builder(connectionFactory)
+                .build();
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.authservice.config;
 
 import com.example.authservice.security.JwtAuthenticationFilter;
 import com.example.authservice.security.OAuth2AuthenticationSuccessHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,6 +12,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -24,11 +26,14 @@ public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final OAuth2AuthenticationSuccessHandler oauth2SuccessHandler;
+    private final int managementPort;
     
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
-                         OAuth2AuthenticationSuccessHandler oauth2SuccessHandler) {
+                         OAuth2AuthenticationSuccessHandler oauth2SuccessHandler,
+                         @Value("${management.server.port}") int managementPort) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.oauth2SuccessHandler = oauth2SuccessHandler;
+        this.managementPort = managementPort;
     }
     
     @Bean
@@ -50,8 +55,10 @@ public class SecurityConfig {
                     "/swagger-ui/**",
                     "/v3/api-docs/**",
                     "/swagger-ui.html",
-                    "/health"
+                    "/health",
+                    "/.well-known/jwks.json"
                 ).permitAll()
+                .requestMatchers(prometheusOnManagementPort()).permitAll()
                 // Protected endpoints
                 .requestMatchers(
                     "/api/auth/profile",
@@ -69,6 +76,14 @@ public class SecurityConfig {
         
         return http.build();
     }
+
+    /**
+     * Scrapes of /actuator/prometheus, which carry no access token; on the public port the path still needs one
+     */
+    private RequestMatcher prometheusOnManagementPort() {
+        return request -> request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
     
     
     @Bean
@@ -1,7 +1,9 @@
 package com.example.authservice.controller;
 
 import com.example.authservice.dto.*;
+import com.example.authservice.exception.PasswordHashingUnavailableException;
 import com.example.authservice.service.AuthService;
+import com.example.authservice.service.RateLimitService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -31,8 +33,10 @@ public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     
     private final AuthService authService;
-    public AuthController(AuthService authService) {
+    private final RateLimitService rateLimitService;
+    public AuthController(AuthService authService, RateLimitService rateLimitService) {
         this.authService = authService;
+        this.rateLimitService = rateLimitService;
     }
     
     @PostMapping("/register")
@@ -40,14 +44,21 @@ public class AuthController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "User registered successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid input or user already exists"),
+        @ApiResponse(responseCode = "429", description = "Too many requests from this client or for this account"),
+        @ApiResponse(responseCode = "503", description = "Too many concurrent password checks, retry later"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
         try {
+            String ipAddress = getClientIpAddress(httpRequest);
+            long retryAfterMillis = rateLimitService.tryAcquire(ipAddress, request.getEmail());
+            if (retryAfterMillis > 0) {
+                return tooManyRequests(retryAfterMillis);
+            }
+            
             String clientId = request.getClientId() != null ? request.getClientId() : "web";
             String deviceInfo = request.getDeviceInfo() != null ? request.getDeviceInfo() : 
                               httpRequest.getHeader("User-Agent");
-            String ipAddress = getClientIpAddress(httpRequest);
             
             AuthService.AuthResponse authResponse = authService.register(
                 request.getUsername(),
@@ -72,6 +83,8 @@ public class AuthController {
             );
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (PasswordHashingUnavailableException e) {
+            return serviceOverloaded(e);
         } catch (Exception e) {
             logger.error("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -83,14 +96,21 @@ public class AuthController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Login successful"),
         @ApiResponse(responseCode = "401", description = "Invalid credentials"),
+        @ApiResponse(responseCode = "429", description = "Too many requests from this client or for this account"),
+        @ApiResponse(responseCode = "503", description = "Too many concurrent password checks, retry later"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         try {
+            String ipAddress = getClientIpAddress(httpRequest);
+            long retryAfterMillis = rateLimitService.tryAcquire(ipAddress, request.getIdentifier());
+            if (retryAfterMillis > 0) {
+                return tooManyRequests(retryAfterMillis);
+            }
+            
             String clientId = request.getClientId() != null ? request.getClientId() : "web";
             String deviceInfo = request.getDeviceInfo() != null ? request.getDeviceInfo() : 
                               httpRequest.getHeader("User-Agent");
-            String ipAddress = getClientIpAddress(httpRequest);
             
             AuthService.AuthResponse authResponse = authService.login(
                 request.getIdentifier(),
@@ -112,6 +132,8 @@ public class AuthController {
             );
             
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingUnavailableException e) {
+            return serviceOverloaded(e);
         } catch (Exception e) {
             logger.error("Login failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
@@ -123,13 +145,19 @@ public class AuthController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Token refreshed successfully"),
         @ApiResponse(responseCode = "401", description = "Invalid refresh token"),
+        @ApiResponse(responseCode = "429", description = "Too many requests from this client"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request, HttpServletRequest httpRequest) {
         try {
+            String ipAddress = getClientIpAddress(httpRequest);
+            long retryAfterMillis = rateLimitService.tryAcquire(ipAddress, null);
+            if (retryAfterMillis > 0) {
+                return tooManyRequests(retryAfterMillis);
+            }
+            
             String deviceInfo = request.getDeviceInfo() != null ? request.getDeviceInfo() : 
                               httpRequest.getHeader("User-Agent");
-            String ipAddress = getClientIpAddress(httpRequest);
             
             AuthService.AuthResponse authResponse = authService.refreshToken(
                 request.getRefreshToken(),
@@ -258,16 +286,21 @@ public class AuthController {
     }
     
     private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
+        // Also the rate limit key, so client-supplied forwarding headers are not read here. Behind a
+        // proxy, server.forward-headers-strategy=native resolves the address from trusted proxies only.
         return request.getRemoteAddr();
     }
+    
+    private ResponseEntity<?> tooManyRequests(long retryAfterMillis) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf((retryAfterMillis + 999) / 1000))
+                .body(Map.of("error", "Too many requests, please try again later"));
+    }
+    
+    private ResponseEntity<?> serviceOverloaded(PasswordHashingUnavailableException e) {
+        logger.warn("Rejecting request, password hashing unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("error", e.getMessage()));
+    }
 }
\ No newline at end of file
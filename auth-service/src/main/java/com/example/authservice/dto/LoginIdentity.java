@@ -0,0 +1,50 @@
+package com.example.authservice.dto;
+
+/**
+ * Identity and credentials for a login identifier, read in a single query
+ */
+public class LoginIdentity {
+    
+    private final Long userId;
+    private final String username;
+    private final String email;
+    private final String passwordHash;
+    private final Boolean credentialsEnabled;
+    
+    public LoginIdentity(Long userId, String username, String email, String passwordHash, Boolean credentialsEnabled) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.passwordHash = passwordHash;
+        this.credentialsEnabled = credentialsEnabled;
+    }
+    
+    public UserDto toUserDto() {
+        UserDto user = new UserDto();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setEnabled(true);
+        return user;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+    
+    public Boolean getCredentialsEnabled() {
+        return credentialsEnabled;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Taken usernames around a base name, from User Service's username-availability endpoint
+ */
+public class UsernameAvailability {
+    
+    @JsonProperty("base")
+    private String base;
+    
+    @JsonProperty("stem")
+    private String stem;
+    
+    @JsonProperty("baseTaken")
+    private boolean baseTaken;
+    
+    @JsonProperty("takenSuffixes")
+    private List<Integer> takenSuffixes = new ArrayList<>();
+    
+    public UsernameAvailability() {}
+    
+    public String getBase() {
+        return base;
+    }
+    
+    public void setBase(String base) {
+        this.base = base;
+    }
+    
+    public String getStem() {
+        return stem;
+    }
+    
+    public void setStem(String stem) {
+        this.stem = stem;
+    }
+    
+    public boolean isBaseTaken() {
+        return baseTaken;
+    }
+    
+    public void setBaseTaken(boolean baseTaken) {
+        this.baseTaken = baseTaken;
+    }
+    
+    public List<Integer> getTakenSuffixes() {
+        return takenSuffixes;
+    }
+    
+    public void setTakenSuffixes(List<Integer> takenSuffixes) {
+        this.takenSuffixes = takenSuffixes;
+    }
+}
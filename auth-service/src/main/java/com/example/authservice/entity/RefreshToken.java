@@ -6,6 +6,7 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.UUID;
 
@@ -56,11 +57,18 @@ public class RefreshToken {
         this.clientId = clientId;
         this.deviceInfo = deviceInfo;
         this.ipAddress = ipAddress;
-        this.expiresAt = expiresAt;
+        this.expiresAt = truncateExpiry(expiresAt);
         this.lastUsedAt = LocalDateTime.now();
     }
 
     // Helper methods
+    
+    // expires_at is part of the primary key and the Redis store keeps it in epoch millis, so every
+    // write path stores it at millisecond precision for upserts of the same token to match
+    private static LocalDateTime truncateExpiry(LocalDateTime expiresAt) {
+        return expiresAt != null ? expiresAt.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+    
     public boolean isExpired() {
         return LocalDateTime.now().isAfter(expiresAt);
     }
@@ -139,7 +147,7 @@ public class RefreshToken {
     }
 
     public void setExpiresAt(LocalDateTime expiresAt) {
-        this.expiresAt = expiresAt;
+        this.expiresAt = truncateExpiry(expiresAt);
     }
 
     public Boolean getRevoked() {
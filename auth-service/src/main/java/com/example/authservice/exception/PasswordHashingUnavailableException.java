@@ -0,0 +1,16 @@
+package com.example.authservice.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated or a hash does not finish in time.
+ * Callers should answer 503 so clients back off instead of retrying immediately.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.RefreshToken;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC batch writes for refresh tokens whose ids are assigned outside JPA, as the Redis token store does
+ */
+@Repository
+public class RefreshTokenBatchRepository {
+
+    // Revocation and replacement only ever move forward, so upserts may be applied in any order
+    private static final String UPSERT_SQL = """
+            INSERT INTO refresh_tokens (id, user_id, client_id, device_info, ip_address,
+                                        created_at, last_used_at, expires_at, revoked, replaced_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id, expires_at) DO UPDATE SET
+                revoked = refresh_tokens.revoked OR EXCLUDED.revoked,
+                replaced_by = COALESCE(refresh_tokens.replaced_by, EXCLUDED.replaced_by),
+                last_used_at = GREATEST(refresh_tokens.last_used_at, EXCLUDED.last_used_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RefreshTokenBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void upsertAll(List<RefreshToken> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, tokens, tokens.size(), (ps, token) -> {
+            ps.setObject(1, token.getId());
+            ps.setLong(2, token.getUserId());
+            ps.setString(3, token.getClientId());
+            ps.setString(4, token.getDeviceInfo());
+            ps.setString(5, token.getIpAddress());
+            ps.setTimestamp(6, toTimestamp(token.getCreatedAt()));
+            ps.setTimestamp(7, toTimestamp(token.getLastUsedAt()));
+            ps.setTimestamp(8, toTimestamp(token.getExpiresAt()));
+            ps.setBoolean(9, Boolean.TRUE.equals(token.getRevoked()));
+            if (token.getReplacedBy() != null) {
+                ps.setObject(10, token.getReplacedBy());
+            } else {
+                ps.setNull(10, Types.OTHER);
+            }
+        });
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+}
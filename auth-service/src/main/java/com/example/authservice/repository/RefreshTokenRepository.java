@@ -33,6 +33,33 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
     @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.userId = :userId AND rt.clientId = :clientId")
     void revokeTokensByUserAndClient(@Param("userId") Long userId, @Param("clientId") String clientId);
     
+    /**
+     * Revoke a token in favour of its successor; 0 when it was already revoked, e.g. by a concurrent refresh
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.replacedBy = :replacedBy WHERE rt.id = :tokenId AND rt.revoked = false")
+    int markReplaced(@Param("tokenId") UUID tokenId, @Param("replacedBy") UUID replacedBy);
+    
+    /**
+     * Revoke every active token of the user and client except the newest maxActive, ranked by creation time
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE refresh_tokens SET revoked = true
+            WHERE id IN (
+                SELECT id FROM (
+                    SELECT id, row_number() OVER (ORDER BY created_at DESC, id DESC) AS rn
+                    FROM refresh_tokens
+                    WHERE user_id = :userId AND client_id IS NOT DISTINCT FROM :clientId AND revoked = false
+                ) ranked
+                WHERE ranked.rn > :maxActive
+            )
+            """, nativeQuery = true)
+    int revokeTokensBeyondLimit(@Param("userId") Long userId, @Param("clientId") String clientId,
+                                @Param("maxActive") int maxActive);
+    
     @Modifying
     @Transactional
     @Query("UPDATE RefreshToken rt SET rt.lastUsedAt = :lastUsedAt WHERE rt.id = :tokenId")
@@ -40,9 +67,4 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
     
     @Query("SELECT rt FROM RefreshToken rt WHERE rt.expiresAt < :now OR rt.revoked = true")
     List<RefreshToken> findExpiredOrRevokedTokens(@Param("now") LocalDateTime now);
-    
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :cutoffDate")
-    void deleteExpiredTokens(@Param("cutoffDate") LocalDateTime cutoffDate);
 }
\ No newline at end of file
@@ -2,13 +2,12 @@ package com.example.authservice.repository;
 
 import com.example.authservice.entity.RevokedAccessToken;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -16,10 +15,11 @@ public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAcces
     
     boolean existsByJti(UUID jti);
     
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM RevokedAccessToken rat WHERE rat.expiresAt < :cutoffDate")
-    void deleteExpiredTokens(@Param("cutoffDate") LocalDateTime cutoffDate);
+    @Query("SELECT rat.jti FROM RevokedAccessToken rat WHERE rat.expiresAt >= :now")
+    List<UUID> findActiveJtis(@Param("now") LocalDateTime now);
+    
+    @Query("SELECT rat.jti FROM RevokedAccessToken rat WHERE rat.revokedAt >= :since")
+    List<UUID> findJtisRevokedSince(@Param("since") LocalDateTime since);
     
     @Query("SELECT COUNT(rat) FROM RevokedAccessToken rat WHERE rat.userId = :userId")
     long countByUserId(@Param("userId") Long userId);
@@ -0,0 +1,24 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+    
+    @Query("SELECT sk FROM SigningKey sk WHERE sk.expiresAt > :now ORDER BY sk.createdAt DESC")
+    List<SigningKey> findActiveKeys(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SigningKey sk WHERE sk.expiresAt < :cutoffDate")
+    void deleteExpiredKeys(@Param("cutoffDate") LocalDateTime cutoffDate);
+}
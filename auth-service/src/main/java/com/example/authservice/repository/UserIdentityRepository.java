@@ -0,0 +1,53 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.dto.LoginIdentity;
+import com.example.authservice.entity.UserIdentity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserIdentityRepository extends JpaRepository<UserIdentity, Long> {
+    
+    /**
+     * Resolve a username or email together with its credentials.
+     * Username matches are ordered first, mirroring the precedence of the remote lookups.
+     */
+    @Query("SELECT new com.example.authservice.dto.LoginIdentity(ui.userId, ui.username, ui.email, ac.passwordHash, ac.enabled) " +
+           "FROM UserIdentity ui JOIN AuthCredentials ac ON ac.userId = ui.userId " +
+           "WHERE ui.enabled = true AND (ui.username = :identifier OR ui.email = :identifier) " +
+           "ORDER BY CASE WHEN ui.username = :identifier THEN 0 ELSE 1 END")
+    List<LoginIdentity> findLoginIdentities(@Param("identifier") String identifier);
+    
+    /**
+     * Apply a change from user-events unless a later one has already been applied
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_identities (user_id, username, email, enabled, updated_at)
+            VALUES (:userId, :username, :email, :enabled, :changedAt)
+            ON CONFLICT (user_id) DO UPDATE
+                SET username = EXCLUDED.username, email = EXCLUDED.email,
+                    enabled = EXCLUDED.enabled, updated_at = EXCLUDED.updated_at
+                WHERE user_identities.updated_at <= EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int applyChange(@Param("userId") Long userId, @Param("username") String username, @Param("email") String email,
+                    @Param("enabled") boolean enabled, @Param("changedAt") LocalDateTime changedAt);
+    
+    /**
+     * Add a user nothing is known about yet; an existing row, even a deleted one, is left as it is
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_identities (user_id, username, email, enabled, updated_at)
+            VALUES (:userId, :username, :email, true, :changedAt)
+            ON CONFLICT (user_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("username") String username, @Param("email") String email,
+                       @Param("changedAt") LocalDateTime changedAt);
+}
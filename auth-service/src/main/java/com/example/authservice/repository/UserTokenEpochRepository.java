@@ -0,0 +1,27 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.UserTokenEpoch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserTokenEpochRepository extends JpaRepository<UserTokenEpoch, Long> {
+    
+    @Query("SELECT ute FROM UserTokenEpoch ute WHERE ute.revokedBefore >= :cutoffDate")
+    List<UserTokenEpoch> findActiveEpochs(@Param("cutoffDate") LocalDateTime cutoffDate);
+    
+    @Query("SELECT ute FROM UserTokenEpoch ute WHERE ute.updatedAt >= :since")
+    List<UserTokenEpoch> findUpdatedSince(@Param("since") LocalDateTime since);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserTokenEpoch ute WHERE ute.revokedBefore < :cutoffDate")
+    void deleteExpiredEpochs(@Param("cutoffDate") LocalDateTime cutoffDate);
+}
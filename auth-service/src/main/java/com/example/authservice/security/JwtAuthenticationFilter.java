@@ -2,7 +2,6 @@ package com.example.authservice.security;
 
 import com.example.authservice.dto.UserDto;
 import com.example.authservice.service.AuthService;
-import com.example.authservice.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,11 +25,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     
-    private final JwtService jwtService;
     private final AuthService authService;
     
-    public JwtAuthenticationFilter(JwtService jwtService, AuthService authService) {
-        this.jwtService = jwtService;
+    public JwtAuthenticationFilter(AuthService authService) {
         this.authService = authService;
     }
     
@@ -43,7 +40,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
         
         // Skip JWT processing for public endpoints
         String requestPath = request.getRequestURI();
@@ -60,34 +56,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             jwt = authHeader.substring(7);
-            username = jwtService.extractUsername(jwt);
             
-            // If username is extracted and no authentication is set in context
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Only authenticate if no authentication is set in context
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
                 
-                // Validate token
-                if (authService.validateToken(jwt)) {
-                    Optional<UserDto> userOpt = authService.getUserFromToken(jwt);
+                // Validate token and resolve principal (from claims, or remotely once stale)
+                Optional<UserDto> userOpt = authService.resolveAuthenticatedUser(jwt);
+                
+                if (userOpt.isPresent()) {
+                    UserDto user = userOpt.get();
+                    
+                    // Create authentication token
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            user,
+                            null,
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                    );
+                    
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                     
-                    if (userOpt.isPresent()) {
-                        UserDto user = userOpt.get();
-                        
-                        // Create authentication token
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                user,
-                                null,
-                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
-                        );
-                        
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                        
-                        logger.debug("JWT authentication successful for user: {}", username);
-                    } else {
-                        logger.warn("User not found for valid JWT token: {}", username);
-                    }
+                    logger.debug("JWT authentication successful for user: {}", user.getUsername());
                 } else {
-                    logger.warn("Invalid JWT token for user: {}", username);
+                    logger.warn("Invalid JWT token for request: {}", requestPath);
                 }
             }
         } catch (Exception e) {
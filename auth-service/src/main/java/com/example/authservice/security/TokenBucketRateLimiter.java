@@ -0,0 +1,151 @@
+package com.example.authservice.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token bucket limiter keyed by arbitrary strings (client IP, login identifier).
+ *
+ * Keys are spread over independent stripes so that bounding memory only ever sweeps one
+ * stripe at a time. A full stripe frees a tenth of its keys in one pass, by one thread at a time,
+ * so a flood of new keys pays for a scan once per many keys rather than on each of them. Each bucket is a single AtomicLong packing the last refill time and the
+ * remaining tokens, updated with CAS, so the hot path takes no locks. A bucket that has been
+ * idle long enough to refill completely is indistinguishable from a new one and can be
+ * dropped without changing any decision.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI_TOKENS_PER_REQUEST = 1000;
+
+    private final Map<String, Bucket>[] stripes;
+    private final AtomicBoolean[] evicting;
+    private final int stripeMask;
+    private final int maxKeysPerStripe;
+    private final int evictToPerStripe;
+    private final long capacityMilliTokens;
+    private final double refillMilliTokensPerMs;
+    private final long timeToFullMillis;
+    private final long epochBase = System.currentTimeMillis();
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(int capacity, double refillPerMinute, int stripeCount, int maxKeys) {
+        int stripeTotal = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Map[stripeTotal];
+        this.evicting = new AtomicBoolean[stripeTotal];
+        for (int i = 0; i < stripeTotal; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+            evicting[i] = new AtomicBoolean();
+        }
+        this.stripeMask = stripeTotal - 1;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / stripeTotal);
+        this.evictToPerStripe = maxKeysPerStripe - Math.max(1, maxKeysPerStripe / 10);
+        this.capacityMilliTokens = Math.min(TOKEN_MASK, Math.max(1, capacity) * MILLI_TOKENS_PER_REQUEST);
+        this.refillMilliTokensPerMs = refillPerMinute * MILLI_TOKENS_PER_REQUEST / 60_000d;
+        this.timeToFullMillis = (long) Math.ceil(capacityMilliTokens / refillMilliTokensPerMs);
+    }
+
+    /**
+     * Take one token for the key.
+     *
+     * @return 0 if the request is allowed, otherwise the milliseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        long now = System.currentTimeMillis() - epochBase;
+        int stripeIndex = spread(key.hashCode()) & stripeMask;
+        Map<String, Bucket> stripe = stripes[stripeIndex];
+
+        Bucket bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= maxKeysPerStripe && evicting[stripeIndex].compareAndSet(false, true)) {
+                try {
+                    evict(stripe, now);
+                } finally {
+                    evicting[stripeIndex].set(false);
+                }
+            }
+            Bucket created = new Bucket(pack(now, capacityMilliTokens));
+            bucket = stripe.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+
+        while (true) {
+            long current = bucket.state.get();
+            long lastRefill = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+
+            // Only advance the refill clock by the time actually converted into tokens, otherwise
+            // callers faster than one milli-token apart would starve the bucket forever
+            long added = (long) (Math.max(0, now - lastRefill) * refillMilliTokensPerMs);
+            if (tokens + added >= capacityMilliTokens) {
+                tokens = capacityMilliTokens;
+                lastRefill = now;
+            } else if (added > 0) {
+                tokens += added;
+                lastRefill += (long) (added / refillMilliTokensPerMs);
+            }
+
+            if (tokens < MILLI_TOKENS_PER_REQUEST) {
+                return Math.max(1, (long) Math.ceil((MILLI_TOKENS_PER_REQUEST - tokens) / refillMilliTokensPerMs));
+            }
+            if (bucket.state.compareAndSet(current, pack(lastRefill, tokens - MILLI_TOKENS_PER_REQUEST))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop every bucket that has refilled completely
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis() - epochBase;
+        for (Map<String, Bucket> stripe : stripes) {
+            stripe.values().removeIf(bucket -> isIdle(bucket, now));
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Bucket> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private void evict(Map<String, Bucket> stripe, long now) {
+        stripe.values().removeIf(bucket -> isIdle(bucket, now));
+
+        // Still full of active keys: forget arbitrary ones rather than grow without bound
+        Iterator<String> keys = stripe.keySet().iterator();
+        while (stripe.size() > evictToPerStripe && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private boolean isIdle(Bucket bucket, long now) {
+        return now - (bucket.state.get() >>> TOKEN_BITS) >= timeToFullMillis;
+    }
+
+    private static long pack(long lastRefill, long tokens) {
+        return (lastRefill << TOKEN_BITS) | tokens;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Bucket {
+        private final AtomicLong state;
+
+        private Bucket(long state) {
+            this.state = new AtomicLong(state);
+        }
+    }
+}
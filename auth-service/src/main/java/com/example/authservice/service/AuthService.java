@@ -5,14 +5,19 @@ import com.example.authservice.entity.OAuthProviderToken;
 import com.example.authservice.entity.AuthCredentials;
 import com.example.authservice.repository.OAuthProviderTokenRepository;
 import com.example.authservice.repository.AuthCredentialsRepository;
+import com.example.authservice.dto.LoginIdentity;
 import com.example.authservice.dto.UserDto;
+import com.example.authservice.dto.UsernameAvailability;
+import com.example.authservice.exception.PasswordHashingUnavailableException;
 import com.example.authservice.util.UsernameGenerator;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -28,8 +33,11 @@ public class AuthService {
     private final RefreshTokenService refreshTokenService;
     private final OAuthProviderTokenRepository oauthProviderTokenRepository;
     private final AuthCredentialsRepository authCredentialsRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UsernameGenerator usernameGenerator;
+    private final UserIdentityService userIdentityService;
+    private final boolean statelessAuthEnabled;
+    private final long statelessMaxClaimsAge;
     
     public AuthService(
             UserServiceClient userServiceClient,
@@ -37,15 +45,21 @@ public class AuthService {
             RefreshTokenService refreshTokenService,
             OAuthProviderTokenRepository oauthProviderTokenRepository,
             AuthCredentialsRepository authCredentialsRepository,
-            PasswordEncoder passwordEncoder,
-            UsernameGenerator usernameGenerator) {
+            PasswordHashingService passwordHashingService,
+            UsernameGenerator usernameGenerator,
+            UserIdentityService userIdentityService,
+            @Value("${app.jwt.stateless-auth.enabled:true}") boolean statelessAuthEnabled,
+            @Value("${app.jwt.stateless-auth.max-claims-age:300000}") long statelessMaxClaimsAge) {
         this.userServiceClient = userServiceClient;
         this.jwtService = jwtService;
         this.refreshTokenService = refreshTokenService;
         this.oauthProviderTokenRepository = oauthProviderTokenRepository;
         this.authCredentialsRepository = authCredentialsRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.usernameGenerator = usernameGenerator;
+        this.userIdentityService = userIdentityService;
+        this.statelessAuthEnabled = statelessAuthEnabled;
+        this.statelessMaxClaimsAge = statelessMaxClaimsAge;
     }
     
     @Transactional
@@ -53,6 +67,9 @@ public class AuthService {
                                 String firstName, String lastName,
                                 String clientId, String deviceInfo, String ipAddress) {
         try {
+            // Hash first so an overloaded hashing pool rejects before the user is created remotely
+            String passwordHash = passwordHashingService.encode(password);
+            
             // Create user via User Service
             UserDto userDto = new UserDto();
             userDto.setUsername(username);
@@ -62,9 +79,9 @@ public class AuthService {
             UserDto createdUser = userServiceClient.createUser(userDto);
             
             // Store auth credentials in Auth Service
-            String passwordHash = passwordEncoder.encode(password);
             AuthCredentials authCredentials = new AuthCredentials(createdUser.getId(), passwordHash);
             authCredentialsRepository.save(authCredentials);
+            userIdentityService.record(createdUser);
             
             logger.info("Auth credentials stored for user: {}", username);
             
@@ -85,6 +102,8 @@ public class AuthService {
                 createdUser.getEmail(),
                 createdUser.getEmailVerified()
             );
+        } catch (PasswordHashingUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Registration failed for username: {}", username, e);
             throw new RuntimeException("Registration failed: " + e.getMessage());
@@ -95,56 +114,45 @@ public class AuthService {
     public AuthResponse login(String identifier, String password, 
                              String clientId, String deviceInfo, String ipAddress) {
         try {
-            // Find user by username or email
             logger.info("Attempting login with identifier: {}", identifier);
-            Optional<UserDto> userOpt;
             
-            // Check if identifier looks like an email (contains @ symbol)
-            if (identifier.contains("@")) {
-                logger.info("Identifier appears to be an email, trying email lookup for: {}", identifier);
-                userOpt = userServiceClient.getUserByEmail(identifier);
-                logger.info("Email lookup result: {}", userOpt.isPresent() ? "found" : "not found");
-                
-                // If email lookup fails, also try username lookup as fallback
+            UserDto user;
+            String passwordHash;
+            boolean credentialsEnabled;
+            
+            // Identity and credentials from the local projection in one query, no User Service call
+            Optional<LoginIdentity> loginIdentity = userIdentityService.findLoginIdentity(identifier);
+            if (loginIdentity.isPresent()) {
+                user = loginIdentity.get().toUserDto();
+                passwordHash = loginIdentity.get().getPasswordHash();
+                credentialsEnabled = Boolean.TRUE.equals(loginIdentity.get().getCredentialsEnabled());
+            } else {
+                // Not projected yet (e.g. user predates the projection), fall back to User Service
+                Optional<UserDto> userOpt = findUserRemotely(identifier);
                 if (userOpt.isEmpty()) {
-                    logger.info("Email lookup failed, trying username lookup as fallback for: {}", identifier);
-                    userOpt = userServiceClient.getUserByUsername(identifier);
-                    logger.info("Username lookup result: {}", userOpt.isPresent() ? "found" : "not found");
+                    logger.warn("Login attempt with invalid identifier: {}", identifier);
+                    throw new RuntimeException("Invalid credentials");
                 }
-            } else {
-                logger.info("Identifier appears to be a username, trying username lookup for: {}", identifier);
-                userOpt = userServiceClient.getUserByUsername(identifier);
-                logger.info("Username lookup result: {}", userOpt.isPresent() ? "found" : "not found");
                 
-                // If username lookup fails, also try email lookup as fallback
-                if (userOpt.isEmpty()) {
-                    logger.info("Username lookup failed, trying email lookup as fallback for: {}", identifier);
-                    userOpt = userServiceClient.getUserByEmail(identifier);
-                    logger.info("Email lookup result: {}", userOpt.isPresent() ? "found" : "not found");
+                user = userOpt.get();
+                
+                // Validate password against auth_credentials table
+                Optional<AuthCredentials> authCredentialsOpt = authCredentialsRepository.findActiveByUserId(user.getId());
+                if (authCredentialsOpt.isEmpty()) {
+                    logger.warn("No auth credentials found for user: {}", user.getUsername());
+                    throw new RuntimeException("Invalid credentials");
                 }
+                passwordHash = authCredentialsOpt.get().getPasswordHash();
+                credentialsEnabled = authCredentialsOpt.get().getEnabled();
+                userIdentityService.record(user);
             }
             
-            if (userOpt.isEmpty()) {
-                logger.warn("Login attempt with invalid identifier: {}", identifier);
-                throw new RuntimeException("Invalid credentials");
-            }
-            
-            UserDto user = userOpt.get();
-            
-            // Validate password against auth_credentials table
-            Optional<AuthCredentials> authCredentialsOpt = authCredentialsRepository.findActiveByUserId(user.getId());
-            if (authCredentialsOpt.isEmpty()) {
-                logger.warn("No auth credentials found for user: {}", user.getUsername());
-                throw new RuntimeException("Invalid credentials");
-            }
-            
-            AuthCredentials authCredentials = authCredentialsOpt.get();
-            if (!passwordEncoder.matches(password, authCredentials.getPasswordHash())) {
+            if (!passwordHashingService.matches(password, passwordHash)) {
                 logger.warn("Invalid password for user: {}", user.getUsername());
                 throw new RuntimeException("Invalid credentials");
             }
             
-            if (!authCredentials.getEnabled()) {
+            if (!credentialsEnabled) {
                 logger.warn("Account disabled for user: {}", user.getUsername());
                 throw new RuntimeException("Account disabled");
             }
@@ -166,12 +174,47 @@ public class AuthService {
                 user.getEmail(),
                 user.getEmailVerified()
             );
+        } catch (PasswordHashingUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Login failed for identifier: {}", identifier, e);
             throw new RuntimeException("Login failed: " + e.getMessage());
         }
     }
     
+    /**
+     * Look the identifier up in User Service, trying email or username first depending on its shape
+     */
+    private Optional<UserDto> findUserRemotely(String identifier) {
+        Optional<UserDto> userOpt;
+        
+        // Check if identifier looks like an email (contains @ symbol)
+        if (identifier.contains("@")) {
+            logger.info("Identifier appears to be an email, trying email lookup for: {}", identifier);
+            userOpt = userServiceClient.getUserByEmail(identifier);
+            logger.info("Email lookup result: {}", userOpt.isPresent() ? "found" : "not found");
+            
+            // If email lookup fails, also try username lookup as fallback
+            if (userOpt.isEmpty()) {
+                logger.info("Email lookup failed, trying username lookup as fallback for: {}", identifier);
+                userOpt = userServiceClient.getUserByUsername(identifier);
+                logger.info("Username lookup result: {}", userOpt.isPresent() ? "found" : "not found");
+            }
+        } else {
+            logger.info("Identifier appears to be a username, trying username lookup for: {}", identifier);
+            userOpt = userServiceClient.getUserByUsername(identifier);
+            logger.info("Username lookup result: {}", userOpt.isPresent() ? "found" : "not found");
+            
+            // If username lookup fails, also try email lookup as fallback
+            if (userOpt.isEmpty()) {
+                logger.info("Username lookup failed, trying email lookup as fallback for: {}", identifier);
+                userOpt = userServiceClient.getUserByEmail(identifier);
+                logger.info("Email lookup result: {}", userOpt.isPresent() ? "found" : "not found");
+            }
+        }
+        return userOpt;
+    }
+    
     @Transactional
     public AuthResponse socialLogin(String provider, String providerUserId, 
                                    String email, String username, 
@@ -365,6 +408,44 @@ public class AuthService {
         }
     }
     
+    /**
+     * Resolve the authenticated user for a request token.
+     * When stateless authentication is enabled and the token was issued within the
+     * configured staleness window, the principal is built from the verified claims only.
+     * Older tokens fall back to the remote User Service and auth_credentials lookup.
+     */
+    public Optional<UserDto> resolveAuthenticatedUser(String token) {
+        try {
+            Claims claims = jwtService.extractAllClaims(token);
+            
+            if (statelessAuthEnabled && isWithinStalenessWindow(claims)) {
+                if (jwtService.isTokenRevoked(claims)) {
+                    return Optional.empty();
+                }
+                
+                UserDto user = jwtService.buildUserFromClaims(claims);
+                if (user.getId() == null || user.getUsername() == null || Boolean.FALSE.equals(user.getEnabled())) {
+                    logger.warn("Token claims rejected for stateless authentication: {}", claims.getSubject());
+                    return Optional.empty();
+                }
+                return Optional.of(user);
+            }
+            
+            if (!validateToken(token)) {
+                return Optional.empty();
+            }
+            return getUserFromToken(token);
+        } catch (Exception e) {
+            logger.error("Failed to resolve user from token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private boolean isWithinStalenessWindow(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null && System.currentTimeMillis() - issuedAt.getTime() <= statelessMaxClaimsAge;
+    }
+    
     public Optional<UserDto> getUserFromToken(String token) {
         try {
             String username = jwtService.extractUsername(token);
@@ -381,35 +462,23 @@ public class AuthService {
     private String generateUniqueUsername(String email, String fullName, String provider, String providerId) {
         String baseUsername = usernameGenerator.generateUsername(email, fullName, provider, providerId);
         
-        // Check if username is already taken
-        int suffix = 1;
-        String candidateUsername = baseUsername;
+        // One request tells us every taken candidate, so the pick is local however popular the name is
+        Optional<UsernameAvailability> availability = userServiceClient.getUsernameAvailability(
+                baseUsername, usernameGenerator.getSuffixStem(baseUsername));
+        if (availability.isEmpty()) {
+            // Fallback to UUID-based username
+            return provider.toLowerCase() + "_" + UUID.randomUUID().toString().substring(0, 8);
+        }
         
-        while (true) {
-            try {
-                Optional<UserDto> existingUser = userServiceClient.getUserByUsername(candidateUsername);
-                if (existingUser.isEmpty()) {
-                    // Username is available
-                    logger.info("Generated unique username: {} (base: {})", candidateUsername, baseUsername);
-                    return candidateUsername;
-                }
-                
-                // Username is taken, try with suffix
-                candidateUsername = usernameGenerator.generateUniqueUsername(baseUsername, suffix);
-                suffix++;
-                
-                // Prevent infinite loop
-                if (suffix > 1000) {
-                    logger.warn("Could not generate unique username after 1000 attempts, using UUID fallback");
-                    return provider.toLowerCase() + "_" + UUID.randomUUID().toString().substring(0, 8);
-                }
-                
-            } catch (Exception e) {
-                logger.error("Error checking username availability: {}", candidateUsername, e);
-                // Fallback to UUID-based username
-                return provider.toLowerCase() + "_" + UUID.randomUUID().toString().substring(0, 8);
-            }
+        String candidateUsername = usernameGenerator.pickAvailableUsername(
+                baseUsername, availability.get().isBaseTaken(), availability.get().getTakenSuffixes());
+        if (candidateUsername == null) {
+            logger.warn("Could not generate unique username from base {}, using UUID fallback", baseUsername);
+            return provider.toLowerCase() + "_" + UUID.randomUUID().toString().substring(0, 8);
         }
+        
+        logger.info("Generated unique username: {} (base: {})", candidateUsername, baseUsername);
+        return candidateUsername;
     }
     
     // Inner class for authentication response
@@ -0,0 +1,89 @@
+package com.example.authservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Probes for auth-service's dependencies, run in the background by the health monitor
+ */
+@Component
+public class DependencyHealthChecks {
+
+    private final DataSource dataSource;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UserServiceClient userServiceClient;
+    private final int timeoutSeconds;
+
+    public DependencyHealthChecks(DataSource dataSource,
+                                  RedisTemplate<String, String> redisTemplate,
+                                  UserServiceClient userServiceClient,
+                                  @Value("${app.health.timeout:2000}") long timeout) {
+        this.dataSource = dataSource;
+        this.redisTemplate = redisTemplate;
+        this.userServiceClient = userServiceClient;
+        this.timeoutSeconds = (int) Math.max(1, timeout / 1000);
+    }
+
+    public Map<String, Object> checkDatabase() {
+        Map<String, Object> dbHealth = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean isValid = connection.isValid(timeoutSeconds);
+            dbHealth.put("status", isValid ? "UP" : "DOWN");
+            dbHealth.put("message", isValid ? "Database connection successful" : "Database connection invalid");
+        } catch (Exception e) {
+            dbHealth.put("status", "DOWN");
+            dbHealth.put("message", "Database connection failed: " + e.getMessage());
+            dbHealth.put("error", e.getClass().getSimpleName());
+        }
+        return dbHealth;
+    }
+
+    public Map<String, Object> checkRedis() {
+        Map<String, Object> redisHealth = new HashMap<>();
+        try {
+            // A single PING instead of a write, read and delete
+            String pong = redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            if ("PONG".equalsIgnoreCase(pong)) {
+                redisHealth.put("status", "UP");
+                redisHealth.put("message", "Redis connection successful");
+            } else {
+                redisHealth.put("status", "DOWN");
+                redisHealth.put("message", "Unexpected Redis PING reply: " + pong);
+            }
+        } catch (Exception e) {
+            redisHealth.put("status", "DOWN");
+            redisHealth.put("message", "Redis connection failed: " + e.getMessage());
+            redisHealth.put("error", e.getClass().getSimpleName());
+        }
+        return redisHealth;
+    }
+
+    public Map<String, Object> checkUserService() {
+        Map<String, Object> userServiceHealth = new HashMap<>();
+        try {
+            ResponseEntity<Map> response = userServiceClient.getHealth();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                userServiceHealth.put("status", "UP");
+                userServiceHealth.put("message", "User Service connection successful");
+                userServiceHealth.put("userServiceStatus", response.getBody().get("status"));
+            } else {
+                userServiceHealth.put("status", "DOWN");
+                userServiceHealth.put("message", "User Service returned non-2xx status: " + response.getStatusCode());
+            }
+        } catch (Exception e) {
+            userServiceHealth.put("status", "DOWN");
+            userServiceHealth.put("message", "User Service connection failed: " + e.getMessage());
+            userServiceHealth.put("error", e.getClass().getSimpleName());
+        }
+        return userServiceHealth;
+    }
+}
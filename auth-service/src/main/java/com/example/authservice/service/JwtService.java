@@ -1,22 +1,25 @@
 package com.example.authservice.service;
 
-import com.example.authservice.entity.RevokedAccessToken;
 import com.example.authservice.dto.UserDto;
-import com.example.authservice.repository.RevokedAccessTokenRepository;
+import com.example.authservice.security.VerifiedClaimsCache;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
@@ -24,25 +27,68 @@ public class JwtService {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
     
-    private final SecretKey secretKey;
+    private final SigningKeyService signingKeyService;
+    private final JwtParser jwtParser;
+    private final VerifiedClaimsCache verifiedClaimsCache;
     private final long accessTokenExpiration;
     private final long refreshTokenExpiration;
     private final String issuer;
-    private final RevokedAccessTokenRepository revokedTokenRepository;
-    // Temporarily disable Redis integration for debugging
-    // private final RedisTokenBlacklistService redisTokenBlacklistService;
+    private final RevokedTokenFilterService revokedTokenFilter;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final UserTokenEpochService userTokenEpochService;
     
-    public JwtService(@Value("${app.jwt.secret}") String secret,
+    // Registered up front so the per-request path only records
+    private final Timer validVerifications;
+    private final Timer invalidVerifications;
+    private final Counter claimsCacheHits;
+    private final Counter claimsCacheMisses;
+    
+    public JwtService(SigningKeyService signingKeyService,
                      @Value("${app.jwt.access-token-expiration}") long accessTokenExpiration,
                      @Value("${app.jwt.refresh-token-expiration}") long refreshTokenExpiration,
                      @Value("${app.jwt.issuer}") String issuer,
-                     RevokedAccessTokenRepository revokedTokenRepository) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+                     @Value("${app.jwt.claims-cache.max-size:10000}") int claimsCacheMaxSize,
+                     RevokedTokenFilterService revokedTokenFilter,
+                     TokenBlacklistService tokenBlacklistService,
+                     UserTokenEpochService userTokenEpochService,
+                     MeterRegistry meterRegistry) {
+        this.signingKeyService = signingKeyService;
+        // Parsers are immutable and thread-safe, so build once and reuse for every token.
+        // The verification key is picked by the token's kid, so rotated keys keep verifying.
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return signingKeyService.getVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        this.verifiedClaimsCache = new VerifiedClaimsCache(claimsCacheMaxSize);
         this.accessTokenExpiration = accessTokenExpiration;
         this.refreshTokenExpiration = refreshTokenExpiration;
         this.issuer = issuer;
-        this.revokedTokenRepository = revokedTokenRepository;
-        // this.redisTokenBlacklistService = redisTokenBlacklistService;
+        this.revokedTokenFilter = revokedTokenFilter;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.userTokenEpochService = userTokenEpochService;
+        this.validVerifications = verificationTimer(meterRegistry, "valid");
+        this.invalidVerifications = verificationTimer(meterRegistry, "invalid");
+        this.claimsCacheHits = cacheCounter(meterRegistry, "hit");
+        this.claimsCacheMisses = cacheCounter(meterRegistry, "miss");
+    }
+    
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Signature verification and parsing of access tokens")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+    
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.gets")
+                .tag("cache", "jwt-claims")
+                .tag("result", result)
+                .register(meterRegistry);
     }
     
     public String generateAccessToken(UserDto user) {
@@ -75,15 +121,13 @@ public class JwtService {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
         
-        return Jwts.builder()
+        return signingKeyService.sign(Jwts.builder()
                 .claims(claims)
                 .subject(subject)
                 .issuer(issuer)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .id(UUID.randomUUID().toString())
-                .signWith(secretKey)
-                .compact();
+                .id(UUID.randomUUID().toString()));
     }
     
     public String extractUsername(String token) {
@@ -107,38 +151,87 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
     
-    private Claims extractAllClaims(String token) {
+    /**
+     * Verify a token and return its claims. Verified claims are cached by token digest
+     * until the token expires, so repeated requests with the same token skip the
+     * signature check and JSON parse.
+     */
+    public Claims extractAllClaims(String token) {
+        Claims cached = verifiedClaimsCache.get(token);
+        if (cached != null) {
+            claimsCacheHits.increment();
+            return cached;
+        }
+        claimsCacheMisses.increment();
+        
+        long start = System.nanoTime();
         try {
-            return Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            validVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            verifiedClaimsCache.put(token, claims);
+            return claims;
         } catch (JwtException e) {
+            invalidVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             logger.error("Failed to parse JWT token: {}", e.getMessage());
             throw e;
         }
     }
     
+    /**
+     * Build a user principal from already verified token claims, without calling User Service
+     */
+    public UserDto buildUserFromClaims(Claims claims) {
+        UserDto user = new UserDto();
+        user.setId(claims.get("userId", Long.class));
+        user.setUsername(claims.get("username", String.class) != null
+                ? claims.get("username", String.class) : claims.getSubject());
+        user.setEmail(claims.get("email", String.class));
+        user.setEmailVerified(claims.get("emailVerified", Boolean.class));
+        user.setEnabled(claims.get("enabled", Boolean.class));
+        return user;
+    }
+    
     public boolean isTokenExpired(String token) {
         try {
-            return extractExpiration(token).before(new Date());
+            return isTokenExpired(extractAllClaims(token));
         } catch (JwtException e) {
             return true;
         }
     }
     
+    public boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration == null || expiration.before(new Date());
+    }
+    
     public boolean isTokenRevoked(String token) {
         try {
-            String jti = extractJti(token);
+            return isTokenRevoked(extractAllClaims(token));
+        } catch (Exception e) {
+            logger.error("Error checking token revocation status: {}", e.getMessage());
+            // In case of error, assume token is revoked for security
+            return true;
+        }
+    }
+    
+    public boolean isTokenRevoked(Claims claims) {
+        try {
+            String jti = claims.getId();
             if (jti == null) {
                 return true;
             }
             
-            // Check database (Redis temporarily disabled)
-            boolean dbRevoked = revokedTokenRepository.existsByJti(UUID.fromString(jti));
-            if (dbRevoked) {
-                logger.debug("Token {} is revoked in database", jti);
+            // Logout-all is a per-user epoch, checked locally against the token's issue time
+            if (userTokenEpochService.isRevoked(claims.get("userId", Long.class), claims.getIssuedAt())) {
+                logger.debug("Token {} was issued before the user's revocation epoch", jti);
+                return true;
+            }
+            
+            // Near-cache, Bloom filter and Redis; the database is only read if Redis is down
+            Date expiration = claims.getExpiration();
+            long expiresAtMillis = expiration != null ? expiration.getTime() : System.currentTimeMillis();
+            if (tokenBlacklistService.isRevoked(UUID.fromString(jti), expiresAtMillis)) {
+                logger.debug("Token {} is revoked", jti);
                 return true;
             }
             
@@ -152,10 +245,12 @@ public class JwtService {
     
     public boolean isTokenValid(String token, UserDto user) {
         try {
-            final String username = extractUsername(token);
+            // Verify once, then run every check against the same claims
+            final Claims claims = extractAllClaims(token);
+            final String username = claims.getSubject();
             return username.equals(user.getUsername()) 
-                    && !isTokenExpired(token) 
-                    && !isTokenRevoked(token);
+                    && !isTokenExpired(claims) 
+                    && !isTokenRevoked(claims);
         } catch (JwtException e) {
             logger.error("Token validation failed: {}", e.getMessage());
             return false;
@@ -164,24 +259,18 @@ public class JwtService {
     
     public void revokeToken(String token) {
         try {
-            String jti = extractJti(token);
-            Long userId = extractUserId(token);
-            Date expiration = extractExpiration(token);
+            Claims claims = extractAllClaims(token);
+            String jti = claims.getId();
+            Long userId = claims.get("userId", Long.class);
+            Date expiration = claims.getExpiration();
             
             if (jti != null && userId != null && expiration != null) {
-                // Store in database (Redis temporarily disabled)
                 LocalDateTime expiresAt = expiration.toInstant()
                         .atZone(ZoneId.systemDefault())
                         .toLocalDateTime();
                 
-                RevokedAccessToken revokedToken = new RevokedAccessToken(
-                        UUID.fromString(jti), 
-                        userId, 
-                        expiresAt
-                );
-                
-                revokedTokenRepository.save(revokedToken);
-                logger.info("Token with JTI {} has been revoked (Database only)", jti);
+                tokenBlacklistService.revoke(UUID.fromString(jti), userId, expiresAt);
+                logger.info("Token with JTI {} has been revoked", jti);
             }
         } catch (Exception e) {
             logger.error("Failed to revoke token: {}", e.getMessage());
@@ -190,28 +279,31 @@ public class JwtService {
     
     public void revokeAllUserTokens(Long userId) {
         try {
-            // Redis temporarily disabled - this would blacklist all tokens for user in Redis
-            logger.info("All tokens blacklisting for user {} (Redis temporarily disabled)", userId);
+            // One epoch write instead of blacklisting every outstanding JTI
+            userTokenEpochService.revokeAllIssuedBefore(userId, new Date());
+            logger.info("All access tokens revoked for user {}", userId);
         } catch (Exception e) {
             logger.error("Failed to revoke all tokens for user {}: {}", userId, e.getMessage());
+            throw new RuntimeException("Failed to revoke user tokens", e);
         }
     }
     
     public boolean areAllUserTokensRevoked(Long userId) {
         try {
-            // Redis temporarily disabled - this would check if all tokens are blacklisted for user
-            return false;
+            return userTokenEpochService.hasActiveEpoch(userId);
         } catch (Exception e) {
             logger.error("Failed to check if all tokens are revoked for user {}: {}", userId, e.getMessage());
             return false;
         }
     }
     
+    @Scheduled(fixedRate = 3600000) // Run every hour
     public void cleanupExpiredRevokedTokens() {
         try {
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(1);
-            revokedTokenRepository.deleteExpiredTokens(cutoffDate);
-            logger.info("Cleaned up expired revoked tokens before {}", cutoffDate);
+            // Expired rows are removed by dropping partitions in TokenPartitionManager.
+            // Bloom filters cannot delete, so age out expired revocations by rebuilding
+            revokedTokenFilter.rebuild();
+            userTokenEpochService.cleanupExpiredEpochs();
         } catch (Exception e) {
             logger.error("Failed to cleanup expired revoked tokens: {}", e.getMessage());
         }
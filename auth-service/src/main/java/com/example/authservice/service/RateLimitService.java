@@ -0,0 +1,132 @@
+package com.example.authservice.service;
+
+import com.example.authservice.security.TokenBucketRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Throttles the credential endpoints per client IP and per login identifier, before any
+ * password hashing or User Service lookups happen.
+ *
+ * Buckets are always checked in memory first, which also keeps abusive clients off Redis.
+ * When Redis sharing is enabled, requests the local bucket allows are then checked against
+ * a bucket in Redis shared by every instance; if Redis is unavailable the local decision stands.
+ */
+@Service
+public class RateLimitService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitService.class);
+
+    // Token bucket on Redis server time; returns 0 when allowed, otherwise milliseconds until the next token
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) " +
+            "local rate = tonumber(ARGV[2]) " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local state = redis.call('HMGET', KEYS[1], 't', 'ts') " +
+            "local tokens = tonumber(state[1]) or capacity " +
+            "local ts = tonumber(state[2]) or now " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate) " +
+            "local wait = 0 " +
+            "if tokens >= 1 then tokens = tokens - 1 else wait = math.ceil((1 - tokens) / rate) end " +
+            "redis.call('HSET', KEYS[1], 't', tostring(tokens), 'ts', tostring(now)) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate)) " +
+            "return wait",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final String redisKeyPrefix;
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter identifierLimiter;
+    private final int ipCapacity;
+    private final double ipRefillPerMinute;
+    private final int identifierCapacity;
+    private final double identifierRefillPerMinute;
+
+    public RateLimitService(RedisTemplate<String, String> redisTemplate,
+                            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${app.rate-limit.stripes:64}") int stripes,
+                            @Value("${app.rate-limit.max-keys:1000000}") int maxKeys,
+                            @Value("${app.rate-limit.ip.capacity:30}") int ipCapacity,
+                            @Value("${app.rate-limit.ip.refill-per-minute:30}") double ipRefillPerMinute,
+                            @Value("${app.rate-limit.identifier.capacity:5}") int identifierCapacity,
+                            @Value("${app.rate-limit.identifier.refill-per-minute:5}") double identifierRefillPerMinute,
+                            @Value("${app.rate-limit.redis.enabled:false}") boolean redisEnabled,
+                            @Value("${app.rate-limit.redis.keyPrefix:auth:ratelimit:}") String redisKeyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.redisEnabled = redisEnabled;
+        this.redisKeyPrefix = redisKeyPrefix;
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerMinute = ipRefillPerMinute;
+        this.identifierCapacity = identifierCapacity;
+        this.identifierRefillPerMinute = identifierRefillPerMinute;
+        this.ipLimiter = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, stripes, maxKeys);
+        this.identifierLimiter = new TokenBucketRateLimiter(identifierCapacity, identifierRefillPerMinute, stripes, maxKeys);
+    }
+
+    /**
+     * Take a token for the client IP and, if given, the login identifier.
+     *
+     * @return 0 if the request may proceed, otherwise the milliseconds the client should wait
+     */
+    public long tryAcquire(String ipAddress, String identifier) {
+        if (!enabled) {
+            return 0;
+        }
+
+        if (ipAddress != null) {
+            long wait = acquire(ipLimiter, "ip:" + ipAddress, ipCapacity, ipRefillPerMinute);
+            if (wait > 0) {
+                logger.warn("Rate limit exceeded for IP {}", ipAddress);
+                return wait;
+            }
+        }
+
+        if (identifier != null && !identifier.isBlank()) {
+            String normalized = identifier.trim().toLowerCase(Locale.ROOT);
+            long wait = acquire(identifierLimiter, "id:" + normalized, identifierCapacity, identifierRefillPerMinute);
+            if (wait > 0) {
+                logger.warn("Rate limit exceeded for identifier {}", normalized);
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forget buckets that have refilled completely, keeping memory proportional to active clients
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval:60000}")
+    public void sweep() {
+        ipLimiter.sweep();
+        identifierLimiter.sweep();
+    }
+
+    private long acquire(TokenBucketRateLimiter limiter, String key, int capacity, double refillPerMinute) {
+        long wait = limiter.tryAcquire(key);
+        if (wait > 0 || !redisEnabled) {
+            return wait;
+        }
+
+        try {
+            Long sharedWait = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(redisKeyPrefix + key),
+                    String.valueOf(capacity), String.valueOf(refillPerMinute / 60_000d));
+            return sharedWait != null ? sharedWait : 0;
+        } catch (Exception e) {
+            logger.debug("Shared rate limit unavailable, using local decision: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.RefreshToken;
+import com.example.authservice.repository.RefreshTokenBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Optional Redis hot store for active refresh tokens.
+ *
+ * Each token is a hash that expires with the token. Per user and client, a sorted set of active
+ * token ids ordered by creation time enforces the per-client cap, and a per-user set of those
+ * indexes backs logout-all. Issue, rotation and revocation run as server-side scripts, so a token
+ * can only be rotated once even under concurrent refreshes.
+ *
+ * Every script that changes a token also appends its id to a persistence queue in Redis, in the
+ * same atomic step. Instances drain the queue on a schedule and upsert the current state of each
+ * token into refresh_tokens for audit, so the refresh path itself makes no database writes.
+ * Revoked tokens stay in Redis until they expire, which lets a miss be treated as "not issued
+ * through Redis" and answered from the database.
+ */
+@Service
+public class RedisRefreshTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRefreshTokenStore.class);
+
+    // Store a new token, index it and queue it for persistence, then revoke the oldest active
+    // tokens of the same user and client beyond the cap. Token fields start at ARGV[fieldsFrom].
+    private static final String ISSUE_FUNCTION =
+            "local function issue(tokenKey, clientIndex, userIndex, queue, id, createdAt, expiresAt, maxActive, prefix, fieldsFrom) " +
+            "  redis.call('HSET', tokenKey, unpack(ARGV, fieldsFrom)) " +
+            "  redis.call('PEXPIREAT', tokenKey, expiresAt) " +
+            "  redis.call('ZADD', clientIndex, createdAt, id) " +
+            "  redis.call('SADD', userIndex, clientIndex) " +
+            "  redis.call('PEXPIREAT', clientIndex, expiresAt) " +
+            "  redis.call('PEXPIREAT', userIndex, expiresAt) " +
+            "  redis.call('RPUSH', queue, id) " +
+            "  local excess = redis.call('ZCARD', clientIndex) - tonumber(maxActive) " +
+            "  if excess <= 0 then return 0 end " +
+            "  for _, evicted in ipairs(redis.call('ZRANGE', clientIndex, 0, excess - 1)) do " +
+            "    local evictedKey = prefix .. evicted " +
+            "    if redis.call('HGET', evictedKey, 'revoked') == '0' then " +
+            "      redis.call('HSET', evictedKey, 'revoked', '1') " +
+            "      redis.call('RPUSH', queue, evicted) " +
+            "    end " +
+            "  end " +
+            "  redis.call('ZREMRANGEBYRANK', clientIndex, 0, excess - 1) " +
+            "  return excess " +
+            "end ";
+
+    private static final RedisScript<Long> ISSUE_SCRIPT = new DefaultRedisScript<>(
+            ISSUE_FUNCTION +
+            "return issue(KEYS[1], KEYS[2], KEYS[3], KEYS[4], ARGV[1], ARGV[2], ARGV[3], ARGV[4], ARGV[5], 6)",
+            Long.class);
+
+    // Revoke the presented token and issue its successor atomically.
+    // Returns -1 if the token is not in Redis and -2 if it was already rotated or revoked.
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            ISSUE_FUNCTION +
+            "local revoked = redis.call('HGET', KEYS[1], 'revoked') " +
+            "if not revoked then return -1 end " +
+            "if revoked ~= '0' then return -2 end " +
+            "redis.call('HSET', KEYS[1], 'revoked', '1', 'replacedBy', ARGV[3], 'lastUsedAt', ARGV[2]) " +
+            "redis.call('ZREM', KEYS[3], ARGV[1]) " +
+            "redis.call('RPUSH', KEYS[5], ARGV[1]) " +
+            "return issue(KEYS[2], KEYS[3], KEYS[4], KEYS[5], ARGV[3], ARGV[4], ARGV[5], ARGV[6], ARGV[7], 8)",
+            Long.class);
+
+    // Copy a token issued before the store was enabled in from the database, without queueing it
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('HSET', KEYS[1], unpack(ARGV, 4)) " +
+            "redis.call('PEXPIREAT', KEYS[1], ARGV[3]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1]) " +
+            "redis.call('SADD', KEYS[3], KEYS[2]) " +
+            "if redis.call('PTTL', KEYS[2]) < tonumber(ARGV[3]) - tonumber(redis.call('TIME')[1]) * 1000 then " +
+            "  redis.call('PEXPIREAT', KEYS[2], ARGV[3]) " +
+            "  redis.call('PEXPIREAT', KEYS[3], ARGV[3]) " +
+            "end " +
+            "return 1",
+            Long.class);
+
+    // Returns 0 if the token is not in Redis, otherwise 1
+    private static final RedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>(
+            "local state = redis.call('HMGET', KEYS[1], 'revoked', 'userId', 'clientId') " +
+            "if not state[1] then return 0 end " +
+            "if state[1] == '0' then " +
+            "  redis.call('HSET', KEYS[1], 'revoked', '1') " +
+            "  redis.call('RPUSH', KEYS[2], ARGV[1]) " +
+            "end " +
+            "redis.call('ZREM', ARGV[2] .. 'user:' .. state[2] .. ':client:' .. (state[3] or ''), ARGV[1]) " +
+            "return 1",
+            Long.class);
+
+    // Revoke every token in the given client indexes and drop the indexes; returns the number revoked
+    private static final RedisScript<Long> REVOKE_INDEXES_SCRIPT = new DefaultRedisScript<>(
+            "local count = 0 " +
+            "for i = 2, #KEYS do " +
+            "  for _, id in ipairs(redis.call('ZRANGE', KEYS[i], 0, -1)) do " +
+            "    local tokenKey = ARGV[1] .. id " +
+            "    if redis.call('HGET', tokenKey, 'revoked') == '0' then " +
+            "      redis.call('HSET', tokenKey, 'revoked', '1') " +
+            "      redis.call('RPUSH', KEYS[1], id) " +
+            "      count = count + 1 " +
+            "    end " +
+            "  end " +
+            "  redis.call('DEL', KEYS[i]) " +
+            "end " +
+            "return count",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RefreshTokenBatchRepository refreshTokenBatchRepository;
+    private final boolean enabled;
+    private final String keyPrefix;
+    private final String queueKey;
+    private final int persistBatchSize;
+
+    public RedisRefreshTokenStore(RedisTemplate<String, String> redisTemplate,
+                                  RefreshTokenBatchRepository refreshTokenBatchRepository,
+                                  @Value("${app.refresh-token.redis-store.enabled:false}") boolean enabled,
+                                  @Value("${app.refresh-token.redis-store.keyPrefix:auth:refresh:}") String keyPrefix,
+                                  @Value("${app.refresh-token.redis-store.persist-batch-size:500}") int persistBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.refreshTokenBatchRepository = refreshTokenBatchRepository;
+        this.enabled = enabled;
+        this.keyPrefix = keyPrefix;
+        this.queueKey = keyPrefix + "persist-queue";
+        this.persistBatchSize = persistBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Issue a new token, revoking the oldest active tokens of the user and client beyond maxActive
+     */
+    public RefreshToken issue(Long userId, String clientId, String deviceInfo, String ipAddress,
+                              LocalDateTime expiresAt, int maxActive) {
+        RefreshToken token = newToken(userId, clientId, deviceInfo, ipAddress, expiresAt);
+
+        List<String> args = new ArrayList<>();
+        args.add(token.getId().toString());
+        args.add(String.valueOf(toEpochMillis(token.getCreatedAt())));
+        args.add(String.valueOf(toEpochMillis(expiresAt)));
+        args.add(String.valueOf(maxActive));
+        args.add(keyPrefix);
+        args.addAll(toFields(token));
+
+        redisTemplate.execute(ISSUE_SCRIPT,
+                List.of(tokenKey(token.getId()), clientIndexKey(userId, clientId), userIndexKey(userId), queueKey),
+                args.toArray());
+        return token;
+    }
+
+    /**
+     * Look up a token, including revoked ones; empty means the token was never stored in Redis
+     */
+    public Optional<RefreshToken> find(UUID tokenId) {
+        Map<String, String> fields = redisTemplate.<String, String>opsForHash().entries(tokenKey(tokenId));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(fromFields(tokenId, fields));
+    }
+
+    /**
+     * Copy an active database token into Redis so it can be rotated by the store
+     */
+    public void seed(RefreshToken token) {
+        List<String> args = new ArrayList<>();
+        args.add(token.getId().toString());
+        args.add(String.valueOf(toEpochMillis(token.getCreatedAt())));
+        args.add(String.valueOf(toEpochMillis(token.getExpiresAt())));
+        args.addAll(toFields(token));
+
+        redisTemplate.execute(SEED_SCRIPT,
+                List.of(tokenKey(token.getId()),
+                        clientIndexKey(token.getUserId(), token.getClientId()),
+                        userIndexKey(token.getUserId())),
+                args.toArray());
+    }
+
+    /**
+     * Revoke the old token and issue its successor; empty if the old token was already used
+     */
+    public Optional<RefreshToken> rotate(RefreshToken oldToken, String deviceInfo, String ipAddress,
+                                         LocalDateTime expiresAt, int maxActive) {
+        RefreshToken newToken = newToken(oldToken.getUserId(), oldToken.getClientId(), deviceInfo, ipAddress, expiresAt);
+
+        List<String> args = new ArrayList<>();
+        args.add(oldToken.getId().toString());
+        args.add(String.valueOf(toEpochMillis(newToken.getCreatedAt())));
+        args.add(newToken.getId().toString());
+        args.add(String.valueOf(toEpochMillis(newToken.getCreatedAt())));
+        args.add(String.valueOf(toEpochMillis(expiresAt)));
+        args.add(String.valueOf(maxActive));
+        args.add(keyPrefix);
+        args.addAll(toFields(newToken));
+
+        Long result = redisTemplate.execute(ROTATE_SCRIPT,
+                List.of(tokenKey(oldToken.getId()), tokenKey(newToken.getId()),
+                        clientIndexKey(oldToken.getUserId(), oldToken.getClientId()),
+                        userIndexKey(oldToken.getUserId()), queueKey),
+                args.toArray());
+
+        if (result == null || result < 0) {
+            logger.warn("Refresh token {} could not be rotated in Redis: {}", oldToken.getId(),
+                    result != null && result == -2 ? "already used" : "not found");
+            return Optional.empty();
+        }
+
+        oldToken.setReplacedBy(newToken.getId());
+        oldToken.setLastUsedAt(newToken.getCreatedAt());
+        oldToken.revoke();
+        return Optional.of(newToken);
+    }
+
+    /**
+     * Revoke a single token; returns false if the token is not in Redis
+     */
+    public boolean revoke(UUID tokenId) {
+        Long result = redisTemplate.execute(REVOKE_SCRIPT,
+                List.of(tokenKey(tokenId), queueKey),
+                tokenId.toString(), keyPrefix);
+        return result != null && result > 0;
+    }
+
+    public void revokeAllForUser(Long userId) {
+        String userIndex = userIndexKey(userId);
+        Set<String> clientIndexes = redisTemplate.opsForSet().members(userIndex);
+        if (clientIndexes != null && !clientIndexes.isEmpty()) {
+            revokeIndexes(new ArrayList<>(clientIndexes));
+        }
+        redisTemplate.delete(userIndex);
+    }
+
+    public void revokeAllForUserAndClient(Long userId, String clientId) {
+        String clientIndex = clientIndexKey(userId, clientId);
+        revokeIndexes(List.of(clientIndex));
+        redisTemplate.opsForSet().remove(userIndexKey(userId), clientIndex);
+    }
+
+    /**
+     * Write the current state of queued tokens to refresh_tokens. Ids are popped in batches;
+     * a batch that fails to persist is pushed back and retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.refresh-token.redis-store.persist-interval:1000}")
+    public void persistQueuedTokens() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            List<String> ids;
+            do {
+                ids = redisTemplate.opsForList().leftPop(queueKey, persistBatchSize);
+                if (ids == null || ids.isEmpty()) {
+                    return;
+                }
+                persistBatch(ids);
+            } while (ids.size() == persistBatchSize);
+        } catch (Exception e) {
+            logger.error("Failed to drain refresh token persistence queue: {}", e.getMessage());
+        }
+    }
+
+    private void persistBatch(List<String> ids) {
+        List<UUID> tokenIds = new LinkedHashSet<>(ids).stream().map(UUID::fromString).toList();
+
+        List<Object> states = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                for (UUID tokenId : tokenIds) {
+                    operations.opsForHash().entries((K) tokenKey(tokenId));
+                }
+                return null;
+            }
+        });
+
+        List<RefreshToken> tokens = new ArrayList<>(tokenIds.size());
+        for (int i = 0; i < tokenIds.size(); i++) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> fields = (Map<String, String>) states.get(i);
+            // Tokens that expired before being drained have nothing left to persist
+            if (fields != null && !fields.isEmpty()) {
+                tokens.add(fromFields(tokenIds.get(i), fields));
+            }
+        }
+
+        try {
+            refreshTokenBatchRepository.upsertAll(tokens);
+            logger.debug("Persisted {} refresh tokens from Redis", tokens.size());
+        } catch (Exception e) {
+            redisTemplate.opsForList().rightPushAll(queueKey, ids);
+            throw e;
+        }
+    }
+
+    private void revokeIndexes(List<String> clientIndexes) {
+        List<String> keys = new ArrayList<>(clientIndexes.size() + 1);
+        keys.add(queueKey);
+        keys.addAll(clientIndexes);
+        redisTemplate.execute(REVOKE_INDEXES_SCRIPT, keys, keyPrefix);
+    }
+
+    private RefreshToken newToken(Long userId, String clientId, String deviceInfo, String ipAddress,
+                                  LocalDateTime expiresAt) {
+        RefreshToken token = new RefreshToken(userId, clientId, deviceInfo, ipAddress, expiresAt);
+        token.setId(UUID.randomUUID());
+        token.setCreatedAt(token.getLastUsedAt());
+        return token;
+    }
+
+    private List<String> toFields(RefreshToken token) {
+        List<String> fields = new ArrayList<>();
+        fields.add("userId");
+        fields.add(String.valueOf(token.getUserId()));
+        addField(fields, "clientId", token.getClientId());
+        addField(fields, "deviceInfo", token.getDeviceInfo());
+        addField(fields, "ipAddress", token.getIpAddress());
+        fields.add("createdAt");
+        fields.add(String.valueOf(toEpochMillis(token.getCreatedAt())));
+        fields.add("expiresAt");
+        fields.add(String.valueOf(toEpochMillis(token.getExpiresAt())));
+        if (token.getLastUsedAt() != null) {
+            fields.add("lastUsedAt");
+            fields.add(String.valueOf(toEpochMillis(token.getLastUsedAt())));
+        }
+        fields.add("revoked");
+        fields.add(Boolean.TRUE.equals(token.getRevoked()) ? "1" : "0");
+        return fields;
+    }
+
+    private void addField(List<String> fields, String name, String value) {
+        if (value != null) {
+            fields.add(name);
+            fields.add(value);
+        }
+    }
+
+    private RefreshToken fromFields(UUID tokenId, Map<String, String> fields) {
+        RefreshToken token = new RefreshToken();
+        token.setId(tokenId);
+        token.setUserId(Long.valueOf(fields.get("userId")));
+        token.setClientId(fields.get("clientId"));
+        token.setDeviceInfo(fields.get("deviceInfo"));
+        token.setIpAddress(fields.get("ipAddress"));
+        token.setCreatedAt(toLocalDateTime(fields.get("createdAt")));
+        token.setExpiresAt(toLocalDateTime(fields.get("expiresAt")));
+        token.setLastUsedAt(toLocalDateTime(fields.get("lastUsedAt")));
+        token.setRevoked("1".equals(fields.get("revoked")));
+        String replacedBy = fields.get("replacedBy");
+        token.setReplacedBy(replacedBy != null ? UUID.fromString(replacedBy) : null);
+        return token;
+    }
+
+    private String tokenKey(UUID tokenId) {
+        return keyPrefix + tokenId;
+    }
+
+    private String clientIndexKey(Long userId, String clientId) {
+        // Must match the key REVOKE_SCRIPT derives from the token hash
+        return keyPrefix + "user:" + userId + ":client:" + (clientId != null ? clientId : "");
+    }
+
+    private String userIndexKey(Long userId) {
+        return keyPrefix + "user:" + userId + ":clients";
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(String epochMillis) {
+        if (epochMillis == null) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(epochMillis)), ZoneId.systemDefault());
+    }
+}
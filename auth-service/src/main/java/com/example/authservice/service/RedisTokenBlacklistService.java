@@ -52,11 +52,7 @@ public class RedisTokenBlacklistService {
      */
     public boolean isTokenBlacklisted(String tokenId) {
         try {
-            String key = keyPrefix + tokenId;
-            Boolean exists = redisTemplate.hasKey(key);
-            boolean blacklisted = exists != null && exists;
-            logger.debug("Token blacklist check: {} - {}", tokenId, blacklisted ? "BLACKLISTED" : "VALID");
-            return blacklisted;
+            return checkTokenBlacklisted(tokenId);
         } catch (Exception e) {
             logger.error("Failed to check token blacklist status: {}", tokenId, e);
             // In case of Redis failure, assume token is not blacklisted to avoid blocking valid requests
@@ -64,6 +60,17 @@ public class RedisTokenBlacklistService {
         }
     }
     
+    /**
+     * Check if a token is blacklisted, propagating Redis failures so callers can fall back
+     */
+    public boolean checkTokenBlacklisted(String tokenId) {
+        String key = keyPrefix + tokenId;
+        Boolean exists = redisTemplate.hasKey(key);
+        boolean blacklisted = exists != null && exists;
+        logger.debug("Token blacklist check: {} - {}", tokenId, blacklisted ? "BLACKLISTED" : "VALID");
+        return blacklisted;
+    }
+    
     /**
      * Remove a token from blacklist (if needed for testing or admin purposes)
      */
@@ -5,7 +5,7 @@ import com.example.authservice.repository.RefreshTokenRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,28 +20,43 @@ public class RefreshTokenService {
     private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
     
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenUsageRecorder usageRecorder;
+    private final RedisRefreshTokenStore redisStore;
     private final long refreshTokenExpiration;
     private final int maxTokensPerUser;
     
     public RefreshTokenService(
             RefreshTokenRepository refreshTokenRepository,
+            RefreshTokenUsageRecorder usageRecorder,
+            RedisRefreshTokenStore redisStore,
             @Value("${app.jwt.refresh-token-expiration}") long refreshTokenExpiration,
             @Value("${app.refresh-token.max-per-user:5}") int maxTokensPerUser) {
         this.refreshTokenRepository = refreshTokenRepository;
+        this.usageRecorder = usageRecorder;
+        this.redisStore = redisStore;
         this.refreshTokenExpiration = refreshTokenExpiration;
         this.maxTokensPerUser = maxTokensPerUser;
     }
     
     @Transactional
     public RefreshToken createRefreshToken(Long userId, String clientId, String deviceInfo, String ipAddress) {
-        // Clean up old tokens if user has too many
-        cleanupOldTokensForUser(userId, clientId);
-        
         LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(refreshTokenExpiration / 1000);
         
-        RefreshToken refreshToken = new RefreshToken(userId, clientId, deviceInfo, ipAddress, expiresAt);
+        if (redisStore.isEnabled()) {
+            try {
+                return redisStore.issue(userId, clientId, deviceInfo, ipAddress, expiresAt, maxTokensPerUser);
+            } catch (DataAccessException e) {
+                logger.error("Failed to issue refresh token in Redis, falling back to database: {}", e.getMessage());
+            }
+        }
+        
+        RefreshToken refreshToken = refreshTokenRepository.saveAndFlush(
+            new RefreshToken(userId, clientId, deviceInfo, ipAddress, expiresAt));
+        
+        // Enforce the per-client cap now that the new token is counted
+        enforceTokenLimit(userId, clientId);
         
-        return refreshTokenRepository.save(refreshToken);
+        return refreshToken;
     }
     
     public Optional<RefreshToken> findByTokenId(UUID tokenId) {
@@ -49,6 +64,18 @@ public class RefreshTokenService {
     }
     
     public Optional<RefreshToken> validateRefreshToken(UUID tokenId) {
+        if (redisStore.isEnabled()) {
+            try {
+                Optional<RefreshToken> stored = redisStore.find(tokenId);
+                if (stored.isPresent()) {
+                    // lastUsedAt is recorded by the rotation script
+                    return validateStoredToken(stored.get());
+                }
+            } catch (DataAccessException e) {
+                logger.error("Failed to read refresh token from Redis, falling back to database: {}", e.getMessage());
+            }
+        }
+        
         Optional<RefreshToken> tokenOpt = findByTokenId(tokenId);
         
         if (tokenOpt.isEmpty()) {
@@ -72,27 +99,67 @@ public class RefreshTokenService {
         //     return Optional.empty();
         // }
         
-        // Update last used timestamp
-        token.markAsUsed();
-        refreshTokenRepository.save(token);
+        // Record last use through the batched flush only; the token is a managed entity when the
+        // caller is transactional, so changing it here would add a full-row UPDATE at commit
+        usageRecorder.recordUse(token.getId(), LocalDateTime.now());
+        
+        if (redisStore.isEnabled()) {
+            seedRedisStore(token);
+        }
         
         return Optional.of(token);
     }
     
+    private Optional<RefreshToken> validateStoredToken(RefreshToken token) {
+        if (Boolean.TRUE.equals(token.getRevoked())) {
+            logger.warn("Refresh token not found or already revoked: {}", token.getId());
+            return Optional.empty();
+        }
+        if (token.isExpired()) {
+            logger.warn("Refresh token expired: {}", token.getId());
+            return Optional.empty();
+        }
+        return Optional.of(token);
+    }
+    
+    private void seedRedisStore(RefreshToken token) {
+        try {
+            redisStore.seed(token);
+        } catch (DataAccessException e) {
+            logger.error("Failed to copy refresh token {} into Redis: {}", token.getId(), e.getMessage());
+        }
+    }
+    
     @Transactional
     public RefreshToken rotateRefreshToken(RefreshToken oldToken, String deviceInfo, String ipAddress) {
-        // Create new token
-        RefreshToken newToken = createRefreshToken(
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(refreshTokenExpiration / 1000);
+        
+        if (redisStore.isEnabled()) {
+            // No database fallback when Redis fails: the Redis copy of the old token would stay
+            // unrevoked and could be replayed once Redis recovers, so the refresh fails instead.
+            // Empty when a concurrent refresh already rotated this token
+            RefreshToken newToken = redisStore.rotate(oldToken, deviceInfo, ipAddress, expiresAt, maxTokensPerUser)
+                .orElseThrow(() -> new RuntimeException("Refresh token already used"));
+            logger.info("Refresh token rotated for user: {}", oldToken.getUserId());
+            return newToken;
+        }
+        
+        RefreshToken newToken = refreshTokenRepository.saveAndFlush(new RefreshToken(
             oldToken.getUserId(), 
             oldToken.getClientId(), 
             deviceInfo, 
-            ipAddress
-        );
+            ipAddress,
+            expiresAt
+        ));
         
-        // Mark old token as replaced
-        oldToken.setReplacedBy(newToken.getId());
-        oldToken.revoke();
-        refreshTokenRepository.save(oldToken);
+        // Mark old token as replaced before ranking, so it does not take a slot under the cap.
+        // oldToken may be managed, so it is left untouched; changing it would be flushed as another UPDATE.
+        if (refreshTokenRepository.markReplaced(oldToken.getId(), newToken.getId()) != 1) {
+            // A concurrent refresh already rotated this token; throwing rolls back the successor saved above
+            throw new RuntimeException("Refresh token already used");
+        }
+        
+        enforceTokenLimit(oldToken.getUserId(), oldToken.getClientId());
         
         logger.info("Refresh token rotated for user: {}", oldToken.getUserId());
         
@@ -108,20 +175,38 @@ public class RefreshTokenService {
     
     @Transactional
     public void revokeToken(UUID tokenId) {
+        // A Redis failure propagates: revoking only the database row would leave the Redis copy valid
+        if (redisStore.isEnabled() && redisStore.revoke(tokenId)) {
+            logger.info("Refresh token revoked: {}", tokenId);
+            return;
+        }
+        
         Optional<RefreshToken> tokenOpt = refreshTokenRepository.findById(tokenId);
         if (tokenOpt.isPresent()) {
             revokeToken(tokenOpt.get());
         }
     }
     
+    /**
+     * Revoke every token of a user. Redis goes first and a Redis failure propagates, since
+     * validation trusts Redis; revoking there also covers tokens still waiting in the persistence
+     * queue, which the database update cannot see and which are persisted as revoked.
+     */
     @Transactional
     public void revokeAllTokensForUser(Long userId) {
+        if (redisStore.isEnabled()) {
+            redisStore.revokeAllForUser(userId);
+        }
         refreshTokenRepository.revokeAllTokensByUserId(userId);
         logger.info("All refresh tokens revoked for user: {}", userId);
     }
     
     @Transactional
     public void revokeAllTokensForUserAndClient(Long userId, String clientId) {
+        // Redis first and fail closed, as for revokeAllTokensForUser
+        if (redisStore.isEnabled()) {
+            redisStore.revokeAllForUserAndClient(userId, clientId);
+        }
         refreshTokenRepository.revokeTokensByUserAndClient(userId, clientId);
         logger.info("All refresh tokens revoked for user: {} and client: {}", userId, clientId);
     }
@@ -134,32 +219,12 @@ public class RefreshTokenService {
         return refreshTokenRepository.findActiveTokensByUserAndClient(userId, clientId);
     }
     
-    private void cleanupOldTokensForUser(Long userId, String clientId) {
-        List<RefreshToken> activeTokens = getActiveTokensForUserAndClient(userId, clientId);
+    private void enforceTokenLimit(Long userId, String clientId) {
+        int revokedCount = refreshTokenRepository.revokeTokensBeyondLimit(userId, clientId, maxTokensPerUser);
         
-        if (activeTokens.size() >= maxTokensPerUser) {
-            // Sort by creation date and revoke oldest tokens
-            activeTokens.sort((t1, t2) -> t1.getCreatedAt().compareTo(t2.getCreatedAt()));
-            
-            int tokensToRevoke = activeTokens.size() - maxTokensPerUser + 1;
-            for (int i = 0; i < tokensToRevoke; i++) {
-                revokeToken(activeTokens.get(i));
-            }
-            
+        if (revokedCount > 0) {
             logger.info("Cleaned up {} old refresh tokens for user: {} and client: {}", 
-                       tokensToRevoke, userId, clientId);
-        }
-    }
-    
-    @Scheduled(fixedRate = 3600000) // Run every hour
-    @Transactional
-    public void cleanupExpiredTokens() {
-        try {
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(7); // Keep expired tokens for 7 days for audit
-            refreshTokenRepository.deleteExpiredTokens(cutoffDate);
-            logger.info("Cleaned up expired refresh tokens before {}", cutoffDate);
-        } catch (Exception e) {
-            logger.error("Failed to cleanup expired refresh tokens: {}", e.getMessage());
+                       revokedCount, userId, clientId);
         }
     }
     
@@ -0,0 +1,79 @@
+package com.example.authservice.service;
+
+import com.example.authservice.repository.RefreshTokenRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for refresh token lastUsedAt timestamps.
+ *
+ * Refreshing no longer rewrites the whole refresh_tokens row. Uses are coalesced per token in
+ * memory, keeping only the latest timestamp, and written out in one transaction every flush
+ * interval. At most one flush interval of lastUsedAt updates is lost if the node crashes; the
+ * value is informational and never consulted when validating a token.
+ */
+@Service
+public class RefreshTokenUsageRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenUsageRecorder.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public RefreshTokenUsageRecorder(RefreshTokenRepository refreshTokenRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordUse(UUID tokenId, LocalDateTime usedAt) {
+        pending.merge(tokenId, usedAt, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+
+    @Scheduled(fixedDelayString = "${app.refresh-token.last-used-flush-interval:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<UUID, LocalDateTime>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, LocalDateTime> entry : pending.entrySet()) {
+            // Only drop the entry if no newer use arrived while we were draining
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<UUID, LocalDateTime> entry : batch) {
+                    refreshTokenRepository.updateLastUsedAt(entry.getKey(), entry.getValue());
+                }
+            });
+            logger.debug("Flushed lastUsedAt for {} refresh tokens", batch.size());
+        } catch (Exception e) {
+            // Put the batch back so the next flush retries it, without overwriting newer uses
+            batch.forEach(entry -> recordUse(entry.getKey(), entry.getValue()));
+            logger.error("Failed to flush refresh token lastUsedAt updates: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.authservice.service;
+
+import com.example.authservice.repository.RevokedAccessTokenRepository;
+import com.example.authservice.security.RevokedTokenBloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory Bloom filter of revoked access token JTIs, kept in front of the
+ * revoked_access_tokens table so that only filter hits are checked against the database.
+ *
+ * Each node rebuilds the filter from the table at startup and after expired rows are
+ * cleaned up, and polls for rows revoked on other nodes every sync interval, which
+ * bounds how long a revocation takes to become visible cluster-wide.
+ */
+@Service
+public class RevokedTokenFilterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokenFilterService.class);
+
+    private final RevokedAccessTokenRepository revokedTokenRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long syncOverlapMillis;
+
+    private volatile RevokedTokenBloomFilter filter;
+    private volatile LocalDateTime lastSyncedAt;
+
+    public RevokedTokenFilterService(RevokedAccessTokenRepository revokedTokenRepository,
+                                     @Value("${app.jwt.revocation-filter.expected-insertions:100000}") long expectedInsertions,
+                                     @Value("${app.jwt.revocation-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                     @Value("${app.jwt.revocation-filter.sync-overlap:30000}") long syncOverlapMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncOverlapMillis = syncOverlapMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Returns false only when the token is definitely not revoked.
+     * Until the filter has been loaded every token is reported as a possible hit.
+     */
+    public boolean mightBeRevoked(UUID jti) {
+        RevokedTokenBloomFilter current = filter;
+        return current == null || current.mightContain(jti);
+    }
+
+    public void add(UUID jti) {
+        RevokedTokenBloomFilter current = filter;
+        if (current != null) {
+            current.add(jti);
+        }
+    }
+
+    /**
+     * Rebuild the filter from the revocations that have not yet expired.
+     * Bloom filters cannot remove entries, so this is how expired revocations age out.
+     */
+    public synchronized void rebuild() {
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<UUID> activeJtis = revokedTokenRepository.findActiveJtis(startedAt);
+
+            RevokedTokenBloomFilter rebuilt = new RevokedTokenBloomFilter(
+                    Math.max(expectedInsertions, activeJtis.size() * 2L), falsePositiveRate);
+            activeJtis.forEach(rebuilt::add);
+
+            filter = rebuilt;
+            lastSyncedAt = startedAt;
+            logger.info("Revoked token filter rebuilt with {} entries", activeJtis.size());
+        } catch (Exception e) {
+            logger.error("Failed to rebuild revoked token filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pull revocations written by other instances since the last sync. The lookback overlaps
+     * the previous window to tolerate clock skew between nodes and late-committing transactions.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-filter.sync-interval:5000}")
+    public synchronized void syncFromDatabase() {
+        RevokedTokenBloomFilter current = filter;
+        if (current == null) {
+            rebuild();
+            return;
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime since = lastSyncedAt.minusNanos(syncOverlapMillis * 1_000_000);
+            List<UUID> jtis = revokedTokenRepository.findJtisRevokedSince(since);
+            jtis.forEach(current::add);
+            lastSyncedAt = startedAt;
+
+            if (!jtis.isEmpty()) {
+                logger.debug("Revoked token filter synced {} entries revoked since {}", jtis.size(), since);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to sync revoked token filter: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.SigningKey;
+import com.example.authservice.repository.SigningKeyRepository;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Rotating RSA keys used to sign access tokens.
+ *
+ * Keys are stored in signing_keys so every auth-service instance signs with the same newest key
+ * and publishes the same key set. A key signs tokens for one rotation interval and stays published
+ * for one access token lifetime after that, so tokens it signed can still be verified. Private keys
+ * are encrypted at rest with a key derived from app.jwt.secret, which no other service needs.
+ * Instances rotate under a Postgres advisory lock, so a rotation adds one key however many
+ * instances notice the newest key is due.
+ */
+@Service
+public class SigningKeyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyService.class);
+
+    private static final String ALGORITHM = "RS256";
+    private static final int KEY_SIZE = 2048;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final long MIN_UNKNOWN_KID_REFRESH_INTERVAL = 5000;
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecretKeySpec keyEncryptionKey;
+    private final long rotationInterval;
+    private final long accessTokenExpiration;
+    private final long refreshInterval;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private volatile KeySet keySet;
+    private volatile long lastRefreshAt;
+
+    public SigningKeyService(SigningKeyRepository signingKeyRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.jwt.secret}") String secret,
+                             @Value("${app.jwt.signing-keys.rotation-interval:86400000}") long rotationInterval,
+                             @Value("${app.jwt.access-token-expiration}") long accessTokenExpiration,
+                             @Value("${app.jwt.signing-keys.refresh-interval:60000}") long refreshInterval) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyEncryptionKey = new SecretKeySpec(sha256(secret), "AES");
+        this.rotationInterval = rotationInterval;
+        this.accessTokenExpiration = accessTokenExpiration;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * Sign a token with the current key, setting its kid header
+     */
+    public String sign(JwtBuilder builder) {
+        KeySet current = current();
+        return builder.header().keyId(current.signingKid).and()
+                .signWith(current.signingKey, Jwts.SIG.RS256)
+                .compact();
+    }
+
+    /**
+     * Public key for a kid, or null if it is not published. An unknown kid may have just been
+     * rotated in by another instance, so the key set is reloaded, at most once every few seconds.
+     */
+    public PublicKey getVerificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+
+        PublicKey key = current().publicKeys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastRefreshAt > MIN_UNKNOWN_KID_REFRESH_INTERVAL) {
+            key = refreshForUnknownKid(kid);
+        }
+        return key;
+    }
+
+    /**
+     * Checked again under the refresh lock, so requests that queued behind a refresh use its
+     * result instead of each reloading the keys in turn
+     */
+    private synchronized PublicKey refreshForUnknownKid(String kid) {
+        PublicKey key = current().publicKeys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastRefreshAt > MIN_UNKNOWN_KID_REFRESH_INTERVAL) {
+            refresh();
+            key = current().publicKeys.get(kid);
+        }
+        return key;
+    }
+
+    /**
+     * JWKS document with every published public key
+     */
+    public Map<String, Object> getJwks() {
+        return Map.of("keys", current().jwks);
+    }
+
+    /**
+     * Reload the published keys and rotate in a new signing key once the newest one is older
+     * than the rotation interval
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.signing-keys.refresh-interval:60000}")
+    public synchronized void refresh() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<SigningKey> active = signingKeyRepository.findActiveKeys(now);
+
+            if (isRotationDue(active, now)) {
+                boolean rotated = Boolean.TRUE.equals(transactionTemplate.execute(status -> rotate(now)));
+                active = signingKeyRepository.findActiveKeys(now);
+                if (rotated) {
+                    logger.info("Rotated JWT signing key, {} keys published", active.size());
+                }
+            }
+
+            keySet = load(active);
+        } catch (Exception e) {
+            logger.error("Failed to refresh JWT signing keys: {}", e.getMessage());
+        } finally {
+            // Failed attempts count too, so unknown kids do not hammer the database while it is down
+            lastRefreshAt = System.currentTimeMillis();
+        }
+    }
+
+    private boolean isRotationDue(List<SigningKey> active, LocalDateTime now) {
+        return active.isEmpty() || active.get(0).getCreatedAt().isBefore(now.minusNanos(rotationInterval * 1_000_000));
+    }
+
+    /**
+     * Add a signing key unless another instance did while this one waited for the lock
+     */
+    private boolean rotate(LocalDateTime now) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('signing_keys_rotation'))");
+        if (!isRotationDue(signingKeyRepository.findActiveKeys(now), now)) {
+            return false;
+        }
+        try {
+            signingKeyRepository.save(generateKey(now));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate JWT signing key", e);
+        }
+        signingKeyRepository.deleteExpiredKeys(now);
+        return true;
+    }
+
+    private KeySet current() {
+        KeySet current = keySet;
+        if (current == null) {
+            refresh();
+            current = keySet;
+        }
+        if (current == null) {
+            throw new IllegalStateException("No JWT signing key available");
+        }
+        return current;
+    }
+
+    private SigningKey generateKey(LocalDateTime now) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(KEY_SIZE, secureRandom);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        // Published until every token it signed has expired, plus one refresh for peers to pick up its successor
+        LocalDateTime expiresAt = now.plusNanos((rotationInterval + accessTokenExpiration + refreshInterval) * 1_000_000);
+        return new SigningKey(
+                UUID.randomUUID().toString(),
+                ALGORITHM,
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+                encrypt(keyPair.getPrivate().getEncoded()),
+                expiresAt);
+    }
+
+    private KeySet load(List<SigningKey> active) throws GeneralSecurityException {
+        if (active.isEmpty()) {
+            throw new IllegalStateException("No active JWT signing keys");
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        Map<String, PublicKey> publicKeys = new HashMap<>();
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey signingKey : active) {
+            RSAPublicKey publicKey = (RSAPublicKey) keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(signingKey.getPublicKey())));
+            publicKeys.put(signingKey.getKid(), publicKey);
+            jwks.add(toJwk(signingKey.getKid(), publicKey));
+        }
+
+        // Keys are ordered newest first
+        SigningKey newest = active.get(0);
+        PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(newest.getPrivateKey())));
+        return new KeySet(newest.getKid(), privateKey, Collections.unmodifiableMap(publicKeys),
+                Collections.unmodifiableList(jwks));
+    }
+
+    private static Map<String, Object> toJwk(String kid, RSAPublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "RSA");
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM);
+        jwk.put("kid", kid);
+        jwk.put("n", base64Url(publicKey.getModulus()));
+        jwk.put("e", base64Url(publicKey.getPublicExponent()));
+        return jwk;
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // Drop the sign byte, JWK integers are unsigned big-endian
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String encrypt(byte[] plaintext) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] ciphertext = cipher.doFinal(plaintext);
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + ciphertext.length)
+                .put(iv).put(ciphertext).array());
+    }
+
+    private byte[] decrypt(String encoded) throws GeneralSecurityException {
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_BITS, bytes, 0, GCM_IV_LENGTH));
+        return cipher.doFinal(bytes, GCM_IV_LENGTH, bytes.length - GCM_IV_LENGTH);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class KeySet {
+        private final String signingKid;
+        private final PrivateKey signingKey;
+        private final Map<String, PublicKey> publicKeys;
+        private final List<Map<String, Object>> jwks;
+
+        private KeySet(String signingKid, PrivateKey signingKey, Map<String, PublicKey> publicKeys,
+                       List<Map<String, Object>> jwks) {
+            this.signingKid = signingKid;
+            this.signingKey = signingKey;
+            this.publicKeys = publicKeys;
+            this.jwks = jwks;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.RevokedAccessToken;
+import com.example.authservice.repository.RevokedAccessTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tiered access token blacklist.
+ *
+ * Lookups are served from a per-node near-cache first, then the revoked token Bloom filter,
+ * then Redis. revoked_access_tokens in Postgres is written on every revocation and is the source
+ * of truth: Redis can lack a revocation (written before Redis held them, evicted, lost on restart,
+ * or a failed write), so a Redis miss for a JTI the Bloom filter flags is confirmed against the
+ * database and backfilled into Redis. Revocations are published on a Redis channel so
+ * that peers update their near-cache immediately instead of waiting for negative entries to expire.
+ */
+@Service
+public class TokenBlacklistService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
+
+    private final RedisTokenBlacklistService redisTokenBlacklistService;
+    private final RevokedTokenFilterService revokedTokenFilter;
+    private final RevokedAccessTokenRepository revokedTokenRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String channel;
+    private final int nearCacheMaxSize;
+    private final long negativeTtl;
+
+    private final Map<UUID, NearCacheEntry> nearCache = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final Counter nearCacheHits;
+    private final Counter nearCacheMisses;
+
+    public TokenBlacklistService(RedisTokenBlacklistService redisTokenBlacklistService,
+                                 RevokedTokenFilterService revokedTokenFilter,
+                                 RevokedAccessTokenRepository revokedTokenRepository,
+                                 RedisTemplate<String, String> redisTemplate,
+                                 @Value("${app.redis.tokenBlacklist.channel:auth:blacklist:revocations}") String channel,
+                                 @Value("${app.redis.tokenBlacklist.nearCache.maxSize:100000}") int nearCacheMaxSize,
+                                 @Value("${app.redis.tokenBlacklist.nearCache.negativeTtl:10000}") long negativeTtl,
+                                 MeterRegistry meterRegistry) {
+        this.redisTokenBlacklistService = redisTokenBlacklistService;
+        this.revokedTokenFilter = revokedTokenFilter;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.nearCacheMaxSize = nearCacheMaxSize;
+        this.negativeTtl = negativeTtl;
+        this.nearCacheHits = Counter.builder("cache.gets")
+                .tag("cache", "token-blacklist")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.nearCacheMisses = Counter.builder("cache.gets")
+                .tag("cache", "token-blacklist")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Check whether a token JTI has been revoked. Positive answers are cached locally
+     * until the token itself expires.
+     */
+    public boolean isRevoked(UUID jti, long tokenExpiresAtMillis) {
+        long now = System.currentTimeMillis();
+
+        NearCacheEntry cached = nearCache.get(jti);
+        if (cached != null) {
+            if (cached.expiresAtMillis > now) {
+                nearCacheHits.increment();
+                return cached.revoked;
+            }
+            nearCache.remove(jti, cached);
+        }
+        nearCacheMisses.increment();
+
+        // Bloom filter negatives are definitive and cheap, no need to cache them
+        if (!revokedTokenFilter.mightBeRevoked(jti)) {
+            return false;
+        }
+
+        boolean revoked;
+        try {
+            revoked = redisTokenBlacklistService.checkTokenBlacklisted(jti.toString());
+            if (!revoked && revokedTokenRepository.existsByJti(jti)) {
+                revoked = true;
+                backfillRedis(jti, tokenExpiresAtMillis);
+            }
+        } catch (Exception e) {
+            logger.warn("Redis blacklist unavailable, falling back to database for token {}: {}", jti, e.getMessage());
+            revoked = revokedTokenRepository.existsByJti(jti);
+        }
+
+        cache(jti, revoked, revoked ? tokenExpiresAtMillis : now + negativeTtl);
+        return revoked;
+    }
+
+    /**
+     * Revoke a token: durable row in Postgres, entry in Redis, local caches, then notify peers
+     */
+    public void revoke(UUID jti, Long userId, LocalDateTime expiresAt) {
+        revokedTokenRepository.save(new RevokedAccessToken(jti, userId, expiresAt));
+
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long ttlMillis = Math.max(1, expiresAtMillis - System.currentTimeMillis());
+        try {
+            redisTokenBlacklistService.blacklistToken(jti.toString(), ttlMillis);
+        } catch (Exception e) {
+            logger.error("Failed to blacklist token {} in Redis, database record remains: {}", jti, e.getMessage());
+        }
+
+        markRevokedLocally(jti, expiresAtMillis);
+        publish(jti, expiresAtMillis);
+    }
+
+    private void backfillRedis(UUID jti, long expiresAtMillis) {
+        long ttlMillis = Math.max(1, expiresAtMillis - System.currentTimeMillis());
+        try {
+            redisTokenBlacklistService.blacklistToken(jti.toString(), ttlMillis);
+            logger.debug("Backfilled revocation of token {} into Redis", jti);
+        } catch (Exception e) {
+            logger.warn("Failed to backfill revocation of token {} into Redis: {}", jti, e.getMessage());
+        }
+    }
+
+    /**
+     * Receive revocations published by peers (and by this node)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.indexOf(':');
+            UUID jti = UUID.fromString(body.substring(0, separator));
+            long expiresAtMillis = Long.parseLong(body.substring(separator + 1));
+            markRevokedLocally(jti, expiresAtMillis);
+            logger.debug("Received token revocation for {}", jti);
+        } catch (Exception e) {
+            logger.error("Failed to handle token revocation message: {}", e.getMessage());
+        }
+    }
+
+    private void markRevokedLocally(UUID jti, long expiresAtMillis) {
+        revokedTokenFilter.add(jti);
+        cache(jti, true, expiresAtMillis);
+    }
+
+    private void publish(UUID jti, long expiresAtMillis) {
+        try {
+            redisTemplate.convertAndSend(channel, jti + ":" + expiresAtMillis);
+        } catch (Exception e) {
+            logger.error("Failed to publish token revocation for {}: {}", jti, e.getMessage());
+        }
+    }
+
+    private void cache(UUID jti, boolean revoked, long expiresAtMillis) {
+        if (nearCacheMaxSize <= 0) {
+            return;
+        }
+        if (nearCache.size() >= nearCacheMaxSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+        nearCache.put(jti, new NearCacheEntry(revoked, expiresAtMillis));
+    }
+
+    /**
+     * Free a tenth of the near-cache in one pass, so a full cache is scanned once per many inserts
+     * rather than on every lookup that misses
+     */
+    private void evict() {
+        int evictTo = nearCacheMaxSize - Math.max(1, nearCacheMaxSize / 10);
+        long now = System.currentTimeMillis();
+        nearCache.values().removeIf(entry -> entry.expiresAtMillis <= now);
+
+        // Prefer keeping positive entries, they are what protects revoked tokens
+        Iterator<NearCacheEntry> negatives = nearCache.values().iterator();
+        while (nearCache.size() > evictTo && negatives.hasNext()) {
+            if (!negatives.next().revoked) {
+                negatives.remove();
+            }
+        }
+
+        Iterator<UUID> keys = nearCache.keySet().iterator();
+        while (nearCache.size() > evictTo && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class NearCacheEntry {
+        private final boolean revoked;
+        private final long expiresAtMillis;
+
+        private NearCacheEntry(boolean revoked, long expiresAtMillis) {
+            this.revoked = revoked;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
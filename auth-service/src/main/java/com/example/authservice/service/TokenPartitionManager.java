@@ -0,0 +1,182 @@
+package com.example.authservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Retention for the expiry-partitioned token tables.
+ *
+ * refresh_tokens and revoked_access_tokens are range-partitioned by expires_at into UTC days.
+ * Partitions are created far enough ahead to hold the longest-lived token being issued, and a
+ * partition is dropped as a whole once everything in it has been expired for the retention
+ * period, so cleanup cost does not grow with row count. Rows that landed in the default partition
+ * are the only ones still deleted individually.
+ *
+ * Creating or dropping a partition locks the parent table, and a waiting lock request queues every
+ * token lookup behind it. DDL therefore runs with a short lock_timeout; a statement that cannot get
+ * its lock in time gives up and is retried on the next run. (DETACH PARTITION CONCURRENTLY would
+ * avoid the lock but Postgres refuses it while the table has a default partition.)
+ */
+@Service
+public class TokenPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenPartitionManager.class);
+
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass";
+
+    // Bounds are read with the session in UTC, e.g. FOR VALUES FROM ('2026-10-16 00:00:00+00') TO (MAXVALUE)
+    private static final Pattern RANGE_BOUNDS = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+    // Postgres drops trailing zeros from the fraction, so it has 0 to 6 digits
+    private static final DateTimeFormatter BOUND_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true).optionalEnd()
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private record PartitionedTable(String name, Duration maxLifetime, Duration retention) {
+    }
+
+    record Partition(String name, Instant from, Instant to) {
+        boolean overlaps(Instant start, Instant end) {
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<PartitionedTable> tables;
+    private final int premakeDays;
+    private final long lockTimeout;
+
+    public TokenPartitionManager(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.jwt.refresh-token-expiration}") long refreshTokenExpiration,
+                                 @Value("${app.jwt.access-token-expiration}") long accessTokenExpiration,
+                                 @Value("${app.partitions.premake-days:3}") int premakeDays,
+                                 @Value("${app.partitions.refresh-tokens-retention-days:7}") int refreshTokensRetentionDays,
+                                 @Value("${app.partitions.revoked-access-tokens-retention-days:1}") int revokedTokensRetentionDays,
+                                 @Value("${app.partitions.lock-timeout:2000}") long lockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.premakeDays = premakeDays;
+        this.lockTimeout = lockTimeout;
+        this.tables = List.of(
+                new PartitionedTable("refresh_tokens",
+                        Duration.ofMillis(refreshTokenExpiration), Duration.ofDays(refreshTokensRetentionDays)),
+                new PartitionedTable("revoked_access_tokens",
+                        Duration.ofMillis(accessTokenExpiration), Duration.ofDays(revokedTokensRetentionDays)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    @Scheduled(fixedDelayString = "${app.partitions.maintenance-interval:3600000}",
+               initialDelayString = "${app.partitions.maintenance-interval:3600000}")
+    public void maintainPartitions() {
+        for (PartitionedTable table : tables) {
+            try {
+                maintain(table);
+            } catch (Exception e) {
+                logger.error("Failed to maintain partitions of {}: {}", table.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void maintain(PartitionedTable table) {
+        Instant now = Instant.now();
+        List<Partition> partitions = listPartitions(table.name());
+
+        // Create every missing day up to the expiry of a token issued now, plus some slack
+        LocalDate firstDay = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        LocalDate lastDay = LocalDate.ofInstant(now.plus(table.maxLifetime()), ZoneOffset.UTC).plusDays(premakeDays);
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            Instant start = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant end = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            if (partitions.stream().noneMatch(p -> p.overlaps(start, end))) {
+                String partition = table.name() + "_p" + day.format(PARTITION_SUFFIX);
+                executeWithLockTimeout(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                        partition, table.name(), start, end));
+                logger.info("Created partition {}", partition);
+            }
+        }
+
+        // Drop partitions whose newest possible row is past retention
+        Instant cutoff = now.minus(table.retention());
+        for (Partition partition : partitions) {
+            if (partition.to() != null && !partition.to().isAfter(cutoff)) {
+                executeWithLockTimeout("DROP TABLE IF EXISTS " + partition.name());
+                logger.info("Dropped expired partition {}", partition.name());
+            }
+        }
+
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM " + table.name() + "_default WHERE expires_at < ?",
+                OffsetDateTime.ofInstant(cutoff, ZoneOffset.UTC));
+        if (deleted > 0) {
+            logger.warn("Deleted {} expired rows from {}_default; partitions may not be created far enough ahead",
+                    deleted, table.name());
+        }
+    }
+
+    private void executeWithLockTimeout(String ddl) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout);
+            jdbcTemplate.execute(ddl);
+        });
+    }
+
+    private List<Partition> listPartitions(String table) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL TimeZone = 'UTC'");
+            return jdbcTemplate.query(LIST_PARTITIONS_SQL,
+                    (rs, rowNum) -> parsePartition(rs.getString(1), rs.getString(2)), table)
+                    .stream().filter(Objects::nonNull).toList();
+        });
+    }
+
+    /**
+     * Partition from its pg_get_expr bound expression, or null for the default partition, which
+     * has no range and is never dropped
+     */
+    static Partition parsePartition(String name, String boundExpression) {
+        Matcher bounds = RANGE_BOUNDS.matcher(boundExpression);
+        if (!bounds.find()) {
+            return null;
+        }
+        return new Partition(name, parseBound(bounds.group(1)), parseBound(bounds.group(2)));
+    }
+
+    private static Instant parseBound(String bound) {
+        if (bound.equals("MINVALUE") || bound.equals("MAXVALUE")) {
+            return null;
+        }
+        return OffsetDateTime.parse(bound.replace("'", ""), BOUND_FORMAT).toInstant();
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Two-level cache of User Service users for auth-service lookups: a bounded in-process map in
+ * front of Redis, shared by all instances.
+ *
+ * Users are stored once by id; email and username keys only point at the id, and a user reached
+ * through them is returned only if it still has that email or username, so an index left behind
+ * by a rename is just a miss. Entries are dropped on every user change event from Kafka. Each
+ * instance consumes the events in its own consumer group, named by its instance id so a restart
+ * rejoins the same group, and a new instance starts from the latest offset. Both levels therefore
+ * expire as a backstop for missed events: Redis entries after the configured TTL, in-process
+ * entries after the local TTL, which is capped at the Redis TTL.
+ *
+ * Reads of the in-process maps take no lock. A map that reaches the local size frees a tenth of
+ * itself in one pass, expired users first, by one thread at a time.
+ *
+ * A lookup that started before an invalidation must not put back what it read. Callers take a
+ * {@link #readStamp()} before reading from User Service and pass it to {@link #put(UserDto, long)},
+ * which skips users invalidated since then.
+ */
+@Service
+public class UserCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheService.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final long localTtlMillis;
+    private final int localMaxSize;
+    private final int localEvictTo;
+
+    // usersById is also the lock that makes check-and-put atomic with invalidate
+    private final Map<Long, LocalUser> usersById = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final AtomicLong invalidations = new AtomicLong();
+    // User id to the number of its latest invalidation, oldest dropped first beyond the local size
+    private final Map<Long, Long> invalidatedAt;
+    // Invalidations numbered up to this have been dropped from invalidatedAt
+    private volatile long forgottenUpTo;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    private record LocalUser(UserDto user, long expiresAt) {
+    }
+
+    public UserCacheService(RedisTemplate<String, String> redisTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${app.redis.userCache.keyPrefix:auth:user:}") String keyPrefix,
+                            @Value("${app.redis.userCache.ttl:300000}") long ttlMillis,
+                            @Value("${app.redis.userCache.localTtl:60000}") long localTtlMillis,
+                            @Value("${app.redis.userCache.localMaxSize:10000}") int localMaxSize,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = keyPrefix;
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.localTtlMillis = Math.min(localTtlMillis, ttlMillis);
+        this.localMaxSize = localMaxSize;
+        this.localEvictTo = localMaxSize - Math.max(1, localMaxSize / 10);
+        this.invalidatedAt = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                if (size() > localMaxSize) {
+                    forgottenUpTo = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.localHits = cacheCounter(meterRegistry, "users-local", "hit");
+        this.localMisses = cacheCounter(meterRegistry, "users-local", "miss");
+        this.redisHits = cacheCounter(meterRegistry, "users-redis", "hit");
+        this.redisMisses = cacheCounter(meterRegistry, "users-redis", "miss");
+    }
+
+    public Optional<UserDto> getById(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        LocalUser local = usersById.get(userId);
+        if (local != null && local.expiresAt() > System.currentTimeMillis()) {
+            localHits.increment();
+            return Optional.of(local.user());
+        }
+        localMisses.increment();
+
+        long stamp = readStamp();
+        try {
+            String json = redisTemplate.opsForValue().get(idKey(userId));
+            if (json != null) {
+                UserDto user = objectMapper.readValue(json, UserDto.class);
+                putLocal(user, stamp);
+                redisHits.increment();
+                return Optional.of(user);
+            }
+            redisMisses.increment();
+        } catch (Exception e) {
+            logger.warn("Failed to read cached user {} from Redis: {}", userId, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    public Optional<UserDto> getByEmail(String email) {
+        return getByIndex(email, idsByEmail, "email:", UserDto::getEmail);
+    }
+
+    public Optional<UserDto> getByUsername(String username) {
+        return getByIndex(username, idsByUsername, "username:", UserDto::getUsername);
+    }
+
+    /**
+     * Mark the start of a read from User Service, to pass to {@link #put(UserDto, long)}
+     */
+    public long readStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Cache a user fetched from or created in User Service under its id, email and username, unless
+     * it was invalidated after the read that returned it started
+     */
+    public void put(UserDto user, long stamp) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+
+        if (!putLocal(user, stamp)) {
+            logger.debug("Not caching user {}, it changed while it was being read", user.getId());
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(idKey(user.getId()), objectMapper.writeValueAsString(user), ttl);
+            if (user.getEmail() != null) {
+                redisTemplate.opsForValue().set(keyPrefix + "email:" + user.getEmail(), user.getId().toString(), ttl);
+            }
+            if (user.getUsername() != null) {
+                redisTemplate.opsForValue().set(keyPrefix + "username:" + user.getUsername(), user.getId().toString(), ttl);
+            }
+            // invalidate records itself before deleting from Redis, so either its delete came after
+            // the write above or the write is undone here
+            if (invalidatedSince(user.getId(), stamp)) {
+                redisTemplate.delete(idKey(user.getId()));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to cache user {} in Redis: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Drop a user from both levels. Email and username keys are left to fail the identity check.
+     */
+    public void invalidate(Long userId) {
+        synchronized (usersById) {
+            long invalidation = invalidations.incrementAndGet();
+            synchronized (invalidatedAt) {
+                // Re-inserted so the map stays ordered by invalidation number
+                invalidatedAt.remove(userId);
+                invalidatedAt.put(userId, invalidation);
+            }
+            usersById.remove(userId);
+        }
+        try {
+            redisTemplate.delete(idKey(userId));
+        } catch (Exception e) {
+            logger.warn("Failed to evict cached user {} from Redis: {}", userId, e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = {"user-events", "profile-updated"},
+                   groupId = "auth-service-user-cache-${app.redis.userCache.instanceId:${HOSTNAME:local}}",
+                   properties = {"value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                                 "auto.offset.reset=latest"})
+    public void handleUserEvent(String message) {
+        try {
+            JsonNode event = objectMapper.readTree(message);
+            // user-events carry aggregateId, profile-updated events carry userId
+            JsonNode id = event.hasNonNull("aggregateId") ? event.get("aggregateId") : event.path("userId");
+            if (id.isMissingNode() || id.isNull()) {
+                return;
+            }
+            Long userId = Long.parseLong(id.asText());
+            invalidate(userId);
+            logger.debug("Evicted cached user {} after {}", userId, event.path("type").asText("profile update"));
+        } catch (Exception e) {
+            logger.error("Failed to apply user event to user cache: {}", message, e);
+        }
+    }
+
+    private Optional<UserDto> getByIndex(String value, Map<String, Long> localIndex, String indexName,
+                                         Function<UserDto, String> attribute) {
+        if (value == null) {
+            return Optional.empty();
+        }
+
+        Long userId = localIndex.get(value);
+        if (userId == null) {
+            try {
+                String cachedId = redisTemplate.opsForValue().get(keyPrefix + indexName + value);
+                if (cachedId == null) {
+                    return Optional.empty();
+                }
+                userId = Long.valueOf(cachedId);
+            } catch (Exception e) {
+                logger.warn("Failed to read cached user index {}{} from Redis: {}", indexName, value, e.getMessage());
+                return Optional.empty();
+            }
+        }
+
+        return getById(userId).filter(user -> value.equals(attribute.apply(user)));
+    }
+
+    /**
+     * Cache a user in process unless it was invalidated since the stamp, and report whether it was
+     */
+    private boolean putLocal(UserDto user, long stamp) {
+        evictLocalIfFull();
+        synchronized (usersById) {
+            if (invalidatedSince(user.getId(), stamp)) {
+                return false;
+            }
+            usersById.put(user.getId(), new LocalUser(user, System.currentTimeMillis() + localTtlMillis));
+        }
+        if (user.getEmail() != null) {
+            idsByEmail.put(user.getEmail(), user.getId());
+        }
+        if (user.getUsername() != null) {
+            idsByUsername.put(user.getUsername(), user.getId());
+        }
+        return true;
+    }
+
+    private boolean invalidatedSince(Long userId, long stamp) {
+        synchronized (invalidatedAt) {
+            // Once a user's invalidation is forgotten it may have been after the stamp
+            if (stamp < forgottenUpTo) {
+                return true;
+            }
+            Long invalidation = invalidatedAt.get(userId);
+            return invalidation != null && invalidation > stamp;
+        }
+    }
+
+    private void evictLocalIfFull() {
+        if (usersById.size() < localMaxSize && idsByEmail.size() < localMaxSize
+                && idsByUsername.size() < localMaxSize) {
+            return;
+        }
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            usersById.values().removeIf(local -> local.expiresAt() <= now);
+            evict(usersById);
+            evict(idsByEmail);
+            evict(idsByUsername);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Drop arbitrary entries until the map is a tenth below the local size
+     */
+    private void evict(Map<?, ?> map) {
+        Iterator<?> keys = map.keySet().iterator();
+        while (map.size() > localEvictTo && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String cache, String result) {
+        return Counter.builder("cache.gets")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private String idKey(Long userId) {
+        return keyPrefix + "id:" + userId;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.LoginIdentity;
+import com.example.authservice.dto.UserDto;
+import com.example.authservice.repository.UserIdentityRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains auth-service's projection of User Service identities (user_identities).
+ *
+ * The projection is fed by USER_CREATED / USER_UPDATED / USER_DELETED events on user-events. Each
+ * row remembers the occurredAt of the last event applied to it, and older events are ignored. A
+ * deleted user is kept as a disabled row, so a late or replayed change cannot bring it back.
+ *
+ * Users that existed before the projection are filled in when auth-service fetches or creates
+ * them. Such a write-through may come from a stale cache, so it only adds users the projection
+ * has never seen and is stamped older than any event, which then always wins.
+ */
+@Service
+public class UserIdentityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIdentityService.class);
+
+    private static final LocalDateTime WRITE_THROUGH_STAMP = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final UserIdentityRepository userIdentityRepository;
+    private final ObjectMapper objectMapper;
+
+    public UserIdentityService(UserIdentityRepository userIdentityRepository, ObjectMapper objectMapper) {
+        this.userIdentityRepository = userIdentityRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Resolve a login identifier (username or email) and its credentials in one query
+     */
+    @Transactional(readOnly = true)
+    public Optional<LoginIdentity> findLoginIdentity(String identifier) {
+        List<LoginIdentity> matches = userIdentityRepository.findLoginIdentities(identifier);
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
+    }
+
+    /**
+     * Write through a user just fetched from or created in User Service. Runs in its own
+     * transaction so a projection failure cannot roll back the caller's login or registration.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void record(UserDto user) {
+        try {
+            if (user.getId() != null && user.getUsername() != null && user.getEmail() != null) {
+                userIdentityRepository.insertIfAbsent(user.getId(), user.getUsername(), user.getEmail(),
+                        WRITE_THROUGH_STAMP);
+            }
+        } catch (Exception e) {
+            // The projection is an optimisation, never fail the caller over it
+            logger.warn("Failed to record identity for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "user-events", groupId = "auth-service-identity",
+                   properties = "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer")
+    @Transactional
+    public void handleUserEvent(String message) {
+        try {
+            JsonNode event = objectMapper.readTree(message);
+            String type = event.path("type").asText();
+            Long userId = Long.parseLong(event.path("aggregateId").asText());
+            LocalDateTime occurredAt = event.hasNonNull("occurredAt")
+                    ? objectMapper.treeToValue(event.get("occurredAt"), LocalDateTime.class)
+                    : LocalDateTime.now();
+            JsonNode payload = event.path("payload");
+
+            switch (type) {
+                case "USER_CREATED":
+                case "USER_UPDATED":
+                    apply(userId, payload, true, occurredAt);
+                    break;
+                case "USER_DELETED":
+                    apply(userId, payload, false, occurredAt);
+                    break;
+                default:
+                    logger.debug("Ignoring user event of type {}", type);
+                    return;
+            }
+            logger.debug("Applied {} to identity projection for user {}", type, userId);
+        } catch (Exception e) {
+            logger.error("Failed to apply user event to identity projection: {}", message, e);
+        }
+    }
+
+    private void apply(Long userId, JsonNode payload, boolean enabled, LocalDateTime occurredAt) {
+        String username = payload.path("username").asText(null);
+        String email = payload.path("email").asText(null);
+        if (username == null || email == null) {
+            return;
+        }
+        userIdentityRepository.applyChange(userId, username, email, enabled, occurredAt);
+    }
+}
@@ -1,16 +1,21 @@
 package com.example.authservice.service;
 
 import com.example.authservice.dto.UserDto;
+import com.example.authservice.dto.UsernameAvailability;
+import com.example.httpclient.ServiceCallGuard;
+import com.example.httpclient.ServiceCallGuards;
+import com.example.httpclient.ServiceUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Map;
 import java.util.Optional;
@@ -21,45 +26,66 @@ public class UserServiceClient {
     private static final Logger logger = LoggerFactory.getLogger(UserServiceClient.class);
     
     private final RestTemplate restTemplate;
+    private final ServiceCallGuard userServiceGuard;
+    private final UserCacheService userCache;
     private final String userServiceBaseUrl;
     private final String internalApiKey;
     
-    public UserServiceClient(RestTemplate restTemplate,
+    public UserServiceClient(@Qualifier("userServiceRestTemplate") RestTemplate restTemplate,
+                           ServiceCallGuards serviceCallGuards,
+                           UserCacheService userCache,
                            @Value("${app.user-service.base-url}") String userServiceBaseUrl,
                            @Value("${app.user-service.internal-api-key}") String internalApiKey) {
         this.restTemplate = restTemplate;
+        // Bounds calls in flight to User Service and fails fast while it is down; cached users are still served
+        this.userServiceGuard = serviceCallGuards.forDestination("user-service");
+        this.userCache = userCache;
         this.userServiceBaseUrl = userServiceBaseUrl;
         this.internalApiKey = internalApiKey;
     }
     
-    @Cacheable(value = "users", key = "#userId")
     public Optional<UserDto> getUserById(Long userId) {
+        Optional<UserDto> cached = userCache.getById(userId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        
+        long stamp = userCache.readStamp();
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("X-Internal-API-Key", internalApiKey);
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
             String url = userServiceBaseUrl + "/internal/users/" + userId;
-            ResponseEntity<UserDto> response = restTemplate.exchange(
+            ResponseEntity<UserDto> response = userServiceGuard.call(() -> restTemplate.exchange(
                 url, HttpMethod.GET, entity, UserDto.class
-            );
+            ));
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                userCache.put(response.getBody(), stamp);
                 return Optional.of(response.getBody());
             }
             
             logger.warn("User not found with ID: {}", userId);
             return Optional.empty();
             
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Skipped fetching user with ID: {} - {}", userId, e.getMessage());
+            return Optional.empty();
         } catch (Exception e) {
             logger.error("Error fetching user with ID: {}", userId, e);
             return Optional.empty();
         }
     }
     
-    // @Cacheable(value = "users", key = "#email")
     public Optional<UserDto> getUserByEmail(String email) {
+        Optional<UserDto> cached = userCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        
         logger.info("UserServiceClient.getUserByEmail called with email: {}", email);
+        long stamp = userCache.readStamp();
         try {
             HttpHeaders headers = new HttpHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
@@ -71,30 +97,39 @@ public class UserServiceClient {
             logger.info("Fetching user by email: {}", email);
             logger.info("Full URL: {}", url);
             
-            ResponseEntity<UserDto> response = restTemplate.exchange(
+            ResponseEntity<UserDto> response = userServiceGuard.call(() -> restTemplate.exchange(
                 url, HttpMethod.GET, entity, UserDto.class
-            );
+            ));
             
             logger.info("Response status: {}", response.getStatusCode());
             logger.info("Response body: {}", response.getBody());
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 logger.info("User found with email: {}", email);
+                userCache.put(response.getBody(), stamp);
                 return Optional.of(response.getBody());
             }
             
             logger.warn("User not found with email: {}", email);
             return Optional.empty();
             
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Skipped fetching user with email: {} - {}", email, e.getMessage());
+            return Optional.empty();
         } catch (Exception e) {
             logger.error("Error fetching user with email: {}", email, e);
             return Optional.empty();
         }
     }
     
-    // @Cacheable(value = "users", key = "#username")
     public Optional<UserDto> getUserByUsername(String username) {
+        Optional<UserDto> cached = userCache.getByUsername(username);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        
         logger.info("UserServiceClient.getUserByUsername called with username: {}", username);
+        long stamp = userCache.readStamp();
         try {
             HttpHeaders headers = new HttpHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
@@ -106,28 +141,66 @@ public class UserServiceClient {
             logger.info("Fetching user by username: {}", username);
             logger.info("Full URL: {}", url);
             
-            ResponseEntity<UserDto> response = restTemplate.exchange(
+            ResponseEntity<UserDto> response = userServiceGuard.call(() -> restTemplate.exchange(
                 url, HttpMethod.GET, entity, UserDto.class
-            );
+            ));
             
             logger.info("Response status: {}", response.getStatusCode());
             logger.info("Response body: {}", response.getBody());
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 logger.info("User found with username: {}", username);
+                userCache.put(response.getBody(), stamp);
                 return Optional.of(response.getBody());
             }
             
             logger.warn("User not found with username: {}", username);
             return Optional.empty();
             
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Skipped fetching user with username: {} - {}", username, e.getMessage());
+            return Optional.empty();
         } catch (Exception e) {
             logger.error("Error fetching user with username: {}", username, e);
             return Optional.empty();
         }
     }
     
+    /**
+     * Which of base, stem_1, stem_2, ... are already taken, in a single request
+     */
+    public Optional<UsernameAvailability> getUsernameAvailability(String base, String stem) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Internal-API-Key", internalApiKey);
+            HttpEntity<String> entity = new HttpEntity<>(headers);
+            
+            String url = UriComponentsBuilder.fromHttpUrl(userServiceBaseUrl + "/internal/users/username-availability")
+                    .queryParam("base", base)
+                    .queryParam("stem", stem)
+                    .toUriString();
+            ResponseEntity<UsernameAvailability> response = userServiceGuard.call(() -> restTemplate.exchange(
+                url, HttpMethod.GET, entity, UsernameAvailability.class
+            ));
+            
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                return Optional.of(response.getBody());
+            }
+            
+            logger.warn("Username availability unavailable for base: {}", base);
+            return Optional.empty();
+            
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Skipped checking username availability for base: {} - {}", base, e.getMessage());
+            return Optional.empty();
+        } catch (Exception e) {
+            logger.error("Error checking username availability for base: {}", base, e);
+            return Optional.empty();
+        }
+    }
+    
     public UserDto createUser(UserDto userDto) {
+        long stamp = userCache.readStamp();
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Content-Type", "application/json");
@@ -139,15 +212,16 @@ public class UserServiceClient {
             logger.info("Creating user: {} with email: {}", userDto.getUsername(), userDto.getEmail());
             logger.info("Full URL: {}", url);
             
-            ResponseEntity<UserDto> response = restTemplate.exchange(
+            ResponseEntity<UserDto> response = userServiceGuard.call(() -> restTemplate.exchange(
                 url, HttpMethod.POST, entity, UserDto.class
-            );
+            ));
             
             logger.info("Response status: {}", response.getStatusCode());
             logger.info("Response body: {}", response.getBody());
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 logger.info("User created successfully: {}", userDto.getUsername());
+                userCache.put(response.getBody(), stamp);
                 return response.getBody();
             }
             
@@ -166,9 +240,9 @@ public class UserServiceClient {
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
             String url = userServiceBaseUrl + "/health";
-            return restTemplate.exchange(
+            return userServiceGuard.call(() -> restTemplate.exchange(
                 url, HttpMethod.GET, entity, Map.class
-            );
+            ));
             
         } catch (Exception e) {
             logger.error("Error checking User Service health", e);
@@ -0,0 +1,190 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.UserTokenEpoch;
+import com.example.authservice.repository.UserTokenEpochRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user revocation epochs: every access token a user was issued before their epoch is invalid.
+ *
+ * Logging out everywhere is a single row write instead of blacklisting each JTI. Epochs are held
+ * in memory for lookups, persisted in user_token_epochs, and pushed to peers over a Redis channel,
+ * with a periodic database sync for messages missed while a node was disconnected. An epoch only
+ * matters for as long as a token issued before it could still be alive, so entries older than the
+ * access token lifetime are pruned.
+ *
+ * Until the epochs have been loaded, which happens once the application is ready and may already
+ * be serving requests, each lookup reads the user's epoch from the database instead, and a user
+ * whose epoch cannot be read is treated as revoked.
+ */
+@Service
+public class UserTokenEpochService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserTokenEpochService.class);
+
+    private final UserTokenEpochRepository userTokenEpochRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String channel;
+    private final long accessTokenExpiration;
+    private final long syncOverlapMillis;
+
+    private final Map<Long, Long> epochs = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastSyncedAt;
+    private volatile boolean loaded;
+
+    public UserTokenEpochService(UserTokenEpochRepository userTokenEpochRepository,
+                                 RedisTemplate<String, String> redisTemplate,
+                                 @Value("${app.jwt.user-epochs.channel:auth:blacklist:user-epochs}") String channel,
+                                 @Value("${app.jwt.access-token-expiration}") long accessTokenExpiration,
+                                 @Value("${app.jwt.user-epochs.sync-overlap:30000}") long syncOverlapMillis) {
+        this.userTokenEpochRepository = userTokenEpochRepository;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.accessTokenExpiration = accessTokenExpiration;
+        this.syncOverlapMillis = syncOverlapMillis;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Invalidate every access token issued to the user up to now
+     */
+    public void revokeAllIssuedBefore(Long userId, Date revokedBefore) {
+        long epochMillis = revokedBefore.getTime();
+        userTokenEpochRepository.save(new UserTokenEpoch(userId, toLocalDateTime(epochMillis)));
+        epochs.merge(userId, epochMillis, Math::max);
+
+        try {
+            redisTemplate.convertAndSend(channel, userId + ":" + epochMillis);
+        } catch (Exception e) {
+            logger.error("Failed to publish token epoch for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * JWT iat has second precision, so a token issued in the same second as the epoch
+     * is treated as issued before it
+     */
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+        Long epochMillis = epochMillis(userId);
+        if (epochMillis == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() < epochMillis;
+    }
+
+    /**
+     * True if the user has an epoch recent enough that it may still be rejecting live tokens
+     */
+    public boolean hasActiveEpoch(Long userId) {
+        Long epochMillis = epochMillis(userId);
+        return epochMillis != null && epochMillis > System.currentTimeMillis() - accessTokenExpiration;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.indexOf(':');
+            Long userId = Long.parseLong(body.substring(0, separator));
+            long epochMillis = Long.parseLong(body.substring(separator + 1));
+            epochs.merge(userId, epochMillis, Math::max);
+            logger.debug("Received token epoch for user {}", userId);
+        } catch (Exception e) {
+            logger.error("Failed to handle token epoch message: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void reload() {
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<UserTokenEpoch> active = userTokenEpochRepository.findActiveEpochs(
+                    startedAt.minusNanos(accessTokenExpiration * 1_000_000));
+            active.forEach(this::apply);
+            lastSyncedAt = startedAt;
+            loaded = true;
+            logger.info("Loaded {} user token epochs", active.size());
+        } catch (Exception e) {
+            logger.error("Failed to load user token epochs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Catch up on epochs whose Redis message this node missed
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.user-epochs.sync-interval:30000}")
+    public synchronized void syncFromDatabase() {
+        if (lastSyncedAt == null) {
+            reload();
+            return;
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime since = lastSyncedAt.minusNanos(syncOverlapMillis * 1_000_000);
+            userTokenEpochRepository.findUpdatedSince(since).forEach(this::apply);
+            lastSyncedAt = startedAt;
+        } catch (Exception e) {
+            logger.error("Failed to sync user token epochs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop epochs older than the access token lifetime, no token they could reject is still valid
+     */
+    public void cleanupExpiredEpochs() {
+        long cutoffMillis = System.currentTimeMillis() - accessTokenExpiration;
+        epochs.values().removeIf(epochMillis -> epochMillis < cutoffMillis);
+        userTokenEpochRepository.deleteExpiredEpochs(toLocalDateTime(cutoffMillis));
+    }
+
+    private Long epochMillis(Long userId) {
+        if (loaded) {
+            return epochs.get(userId);
+        }
+        try {
+            userTokenEpochRepository.findById(userId).ifPresent(this::apply);
+            return epochs.get(userId);
+        } catch (Exception e) {
+            logger.warn("Failed to read token epoch for user {} before epochs were loaded: {}", userId, e.getMessage());
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void apply(UserTokenEpoch epoch) {
+        long epochMillis = epoch.getRevokedBefore().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        epochs.merge(epoch.getUserId(), epochMillis, Math::max);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -2,6 +2,9 @@ package com.example.authservice.util;
 
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 @Component
@@ -10,6 +13,8 @@ public class UsernameGenerator {
     private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+$");
     private static final int MAX_USERNAME_LENGTH = 30;
     private static final int MIN_USERNAME_LENGTH = 3;
+    public static final int MAX_SUFFIX = 9999;
+    private static final int MAX_STEM_LENGTH = MAX_USERNAME_LENGTH - String.valueOf(MAX_SUFFIX).length() - 1;
     
     /**
      * Generate a unique username from OAuth2 provider data
@@ -100,6 +105,32 @@ public class UsernameGenerator {
         return username;
     }
     
+    /**
+     * Stem for suffixed candidates, short enough that any suffix up to MAX_SUFFIX fits without
+     * further truncation, so every candidate shares the prefix "stem_"
+     */
+    public String getSuffixStem(String baseUsername) {
+        return baseUsername.length() > MAX_STEM_LENGTH ? baseUsername.substring(0, MAX_STEM_LENGTH) : baseUsername;
+    }
+    
+    /**
+     * Lowest free candidate given the taken usernames around a base, or null if every suffix is taken
+     */
+    public String pickAvailableUsername(String baseUsername, boolean baseTaken, Collection<Integer> takenSuffixes) {
+        if (!baseTaken) {
+            return baseUsername;
+        }
+        
+        Set<Integer> taken = new HashSet<>(takenSuffixes);
+        String stem = getSuffixStem(baseUsername);
+        for (int suffix = 1; suffix <= MAX_SUFFIX; suffix++) {
+            if (!taken.contains(suffix)) {
+                return generateUniqueUsername(stem, suffix);
+            }
+        }
+        return null;
+    }
+    
     /**
      * Generate a unique username with suffix if needed
      */
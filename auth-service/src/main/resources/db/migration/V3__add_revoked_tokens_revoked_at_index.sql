@@ -0,0 +1,2 @@
+-- Index for incremental revocation filter sync across auth-service instances
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_access_tokens (revoked_at);
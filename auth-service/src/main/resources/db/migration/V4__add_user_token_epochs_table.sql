@@ -0,0 +1,9 @@
+-- Per-user revocation epoch: access tokens issued before revoked_before are invalid
+CREATE TABLE user_token_epochs (
+    user_id BIGINT PRIMARY KEY,
+    revoked_before TIMESTAMPTZ NOT NULL,
+    updated_at TIMESTAMPTZ DEFAULT now()
+);
+
+-- Index for incremental epoch sync across auth-service instances
+CREATE INDEX idx_user_token_epochs_updated_at ON user_token_epochs (updated_at);
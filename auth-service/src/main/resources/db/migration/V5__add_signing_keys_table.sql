@@ -0,0 +1,12 @@
+-- Asymmetric JWT signing keys, published through the JWKS endpoint
+CREATE TABLE signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(16) NOT NULL,
+    public_key TEXT NOT NULL,
+    private_key TEXT NOT NULL, -- PKCS#8, encrypted with the key derived from app.jwt.secret
+    created_at TIMESTAMPTZ DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL
+);
+
+-- Index for loading the keys that are still published
+CREATE INDEX idx_signing_keys_expires_at ON signing_keys (expires_at);
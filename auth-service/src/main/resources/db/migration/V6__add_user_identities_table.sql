@@ -0,0 +1,12 @@
+-- Local projection of User Service identities, fed by user-events, so login resolves in one query
+CREATE TABLE user_identities (
+    user_id BIGINT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    updated_at TIMESTAMPTZ NOT NULL -- occurredAt of the last applied event, older events are ignored
+);
+
+-- Indexes for login identifier lookup
+CREATE INDEX idx_user_identities_username ON user_identities (username);
+CREATE INDEX idx_user_identities_email ON user_identities (email);
@@ -0,0 +1,2 @@
+-- Index for ranking a user's active refresh tokens per client when enforcing the per-client cap
+CREATE INDEX idx_refresh_tokens_active_user_client ON refresh_tokens (user_id, client_id, created_at DESC) WHERE revoked = false;
@@ -0,0 +1,83 @@
+-- Range-partition refresh_tokens and revoked_access_tokens by expires_at, so retention drops whole
+-- partitions instead of deleting rows. Daily partitions (<table>_pYYYYMMDD, UTC days) are created
+-- ahead of time and dropped once expired by TokenPartitionManager. Existing rows move into one
+-- legacy partition reaching past the longest-lived token; the default partition only catches rows
+-- the manager has not made room for yet.
+
+-- Refresh tokens
+ALTER TABLE refresh_tokens RENAME TO refresh_tokens_unpartitioned;
+
+CREATE TABLE refresh_tokens (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id BIGINT NOT NULL, -- Reference to User Service user ID
+    client_id VARCHAR(100),
+    device_info TEXT,
+    ip_address VARCHAR(45),
+    created_at TIMESTAMPTZ DEFAULT now(),
+    last_used_at TIMESTAMPTZ,
+    expires_at TIMESTAMPTZ NOT NULL,
+    revoked BOOLEAN DEFAULT false,
+    replaced_by UUID,
+    metadata JSONB
+) PARTITION BY RANGE (expires_at);
+
+DO $$
+DECLARE
+    legacy_until TIMESTAMPTZ;
+BEGIN
+    SELECT date_trunc('day', GREATEST(MAX(expires_at), now() + INTERVAL '8 days') AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' + INTERVAL '1 day'
+    INTO legacy_until
+    FROM refresh_tokens_unpartitioned;
+
+    EXECUTE format('CREATE TABLE refresh_tokens_p_legacy PARTITION OF refresh_tokens FOR VALUES FROM (MINVALUE) TO (%L)',
+                   legacy_until);
+END $$;
+
+CREATE TABLE refresh_tokens_default PARTITION OF refresh_tokens DEFAULT;
+
+INSERT INTO refresh_tokens (id, user_id, client_id, device_info, ip_address, created_at,
+                            last_used_at, expires_at, revoked, replaced_by, metadata)
+SELECT id, user_id, client_id, device_info, ip_address, created_at,
+       last_used_at, expires_at, revoked, replaced_by, metadata
+FROM refresh_tokens_unpartitioned;
+
+DROP TABLE refresh_tokens_unpartitioned;
+
+-- The partition key has to be part of the primary key; lookups by id still use its leading column
+ALTER TABLE refresh_tokens ADD PRIMARY KEY (id, expires_at);
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+CREATE INDEX idx_refresh_tokens_active_user_client ON refresh_tokens (user_id, client_id, created_at DESC) WHERE revoked = false;
+
+-- Revoked access tokens
+ALTER TABLE revoked_access_tokens RENAME TO revoked_access_tokens_unpartitioned;
+
+CREATE TABLE revoked_access_tokens (
+    jti UUID NOT NULL,
+    user_id BIGINT NOT NULL,
+    revoked_at TIMESTAMPTZ DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL
+) PARTITION BY RANGE (expires_at);
+
+DO $$
+DECLARE
+    legacy_until TIMESTAMPTZ;
+BEGIN
+    SELECT date_trunc('day', GREATEST(MAX(expires_at), now() + INTERVAL '1 day') AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' + INTERVAL '1 day'
+    INTO legacy_until
+    FROM revoked_access_tokens_unpartitioned;
+
+    EXECUTE format('CREATE TABLE revoked_access_tokens_p_legacy PARTITION OF revoked_access_tokens FOR VALUES FROM (MINVALUE) TO (%L)',
+                   legacy_until);
+END $$;
+
+CREATE TABLE revoked_access_tokens_default PARTITION OF revoked_access_tokens DEFAULT;
+
+INSERT INTO revoked_access_tokens (jti, user_id, revoked_at, expires_at)
+SELECT jti, user_id, revoked_at, expires_at
+FROM revoked_access_tokens_unpartitioned;
+
+DROP TABLE revoked_access_tokens_unpartitioned;
+
+ALTER TABLE revoked_access_tokens ADD PRIMARY KEY (jti, expires_at);
+CREATE INDEX idx_revoked_tokens_user_id ON revoked_access_tokens (user_id);
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_access_tokens (revoked_at);
@@ -0,0 +1,22 @@
+-- expires_at is part of the refresh_tokens primary key and is now written at millisecond precision,
+-- matching the Redis token store, so upserts of a token find its existing row.
+
+-- Rows duplicated by upserts from the Redis store: fold each copy's state into the original row
+UPDATE refresh_tokens original
+SET revoked = original.revoked OR copy.revoked,
+    replaced_by = COALESCE(original.replaced_by, copy.replaced_by),
+    last_used_at = GREATEST(original.last_used_at, copy.last_used_at)
+FROM refresh_tokens copy
+WHERE copy.id = original.id
+  AND copy.expires_at = date_trunc('milliseconds', original.expires_at)
+  AND copy.expires_at <> original.expires_at;
+
+DELETE FROM refresh_tokens copy
+USING refresh_tokens original
+WHERE copy.id = original.id
+  AND copy.expires_at = date_trunc('milliseconds', original.expires_at)
+  AND copy.expires_at <> original.expires_at;
+
+UPDATE refresh_tokens
+SET expires_at = date_trunc('milliseconds', expires_at)
+WHERE expires_at <> date_trunc('milliseconds', expires_at);
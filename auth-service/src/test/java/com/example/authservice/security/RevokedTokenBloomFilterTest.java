@@ -0,0 +1,64 @@
+package com.example.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenBloomFilterTest {
+
+    @Test
+    void testMightContain_WithAddedJti_ShouldReturnTrue() {
+        RevokedTokenBloomFilter filter = new RevokedTokenBloomFilter(1_000, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID jti = UUID.randomUUID();
+            filter.add(jti);
+            added.add(jti);
+        }
+
+        // No false negatives
+        for (UUID jti : added) {
+            assertTrue(filter.mightContain(jti));
+        }
+    }
+
+    @Test
+    void testMightContain_WithEmptyFilter_ShouldReturnFalse() {
+        RevokedTokenBloomFilter filter = new RevokedTokenBloomFilter(1_000, 0.01);
+
+        assertFalse(filter.mightContain(UUID.randomUUID()));
+    }
+
+    @Test
+    void testFalsePositiveRate_AtExpectedInsertions_ShouldStayNearTarget() {
+        RevokedTokenBloomFilter filter = new RevokedTokenBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        // Generous margin over the 1% target so the test is not flaky
+        assertTrue(falsePositives < probes * 0.03, "False positive rate was " + (double) falsePositives / probes);
+    }
+
+    @Test
+    void testConstructor_WithZeroExpectedInsertions_ShouldStillWork() {
+        RevokedTokenBloomFilter filter = new RevokedTokenBloomFilter(0, 0.01);
+        UUID jti = UUID.randomUUID();
+
+        filter.add(jti);
+
+        assertTrue(filter.mightContain(jti));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void testTryAcquire_WithinCapacity_ShouldAllow() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 60, 1, 100);
+
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void testTryAcquire_OverCapacity_ShouldReturnWaitUntilNextToken() {
+        // One token per second
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 60, 1, 100);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("client");
+        }
+
+        long wait = limiter.tryAcquire("client");
+
+        assertTrue(wait > 0 && wait <= 1000, "Wait was " + wait + "ms");
+    }
+
+    @Test
+    void testTryAcquire_ShouldLimitEachKeySeparately() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 4, 100);
+
+        assertEquals(0, limiter.tryAcquire("first"));
+        assertTrue(limiter.tryAcquire("first") > 0);
+        assertEquals(0, limiter.tryAcquire("second"));
+    }
+
+    @Test
+    void testTryAcquire_WithMoreKeysThanMax_ShouldBoundMemory() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 1, 1, 10);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+
+        assertTrue(limiter.size() <= 10, "Size was " + limiter.size());
+    }
+
+    @Test
+    void testSweep_ShouldKeepBucketsThatAreNotFull() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 1, 1, 100);
+        limiter.tryAcquire("client");
+
+        limiter.sweep();
+
+        assertEquals(1, limiter.size());
+        assertEquals(0, limiter.tryAcquire("client"), "The bucket keeps its remaining tokens");
+    }
+
+    @Test
+    void testTryAcquire_Concurrently_ShouldNotAllowMoreThanCapacity() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(50, 0.001, 1, 100);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> {
+                if (limiter.tryAcquire("client") == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, allowed.get());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.authservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedClaimsCacheTest {
+
+    private static Claims claimsExpiringIn(long millis) {
+        return Jwts.claims()
+                .subject("1")
+                .expiration(new Date(System.currentTimeMillis() + millis))
+                .build();
+    }
+
+    @Test
+    void testGet_AfterPut_ShouldReturnClaims() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10);
+        Claims claims = claimsExpiringIn(60_000);
+
+        cache.put("token", claims);
+
+        assertSame(claims, cache.get("token"));
+    }
+
+    @Test
+    void testGet_WithDifferentToken_ShouldMiss() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10);
+        cache.put("token", claimsExpiringIn(60_000));
+
+        assertNull(cache.get("token2"));
+    }
+
+    @Test
+    void testGet_WithExpiredToken_ShouldMissAndDropEntry() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10);
+        cache.put("token", claimsExpiringIn(-1_000));
+
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_WithoutExpiration_ShouldNotCache() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10);
+        cache.put("token", Jwts.claims().subject("1").build());
+
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_WhenFull_ShouldStayWithinMaxSize() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(3);
+        for (int i = 0; i < 10; i++) {
+            cache.put("token" + i, claimsExpiringIn(60_000));
+        }
+
+        assertTrue(cache.size() <= 3);
+        assertNotNull(cache.get("token9"), "The entry just added survives eviction");
+    }
+
+    @Test
+    void testPut_WhenFull_ShouldFreeATenthAtOnce() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token" + i, claimsExpiringIn(60_000));
+        }
+
+        cache.put("token100", claimsExpiringIn(60_000));
+
+        assertEquals(91, cache.size());
+    }
+
+    @Test
+    void testPut_WhenFull_ShouldEvictExpiredEntriesFirst() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(2);
+        cache.put("live", claimsExpiringIn(60_000));
+        cache.put("expired", claimsExpiringIn(-1_000));
+
+        cache.put("new", claimsExpiringIn(60_000));
+
+        assertNotNull(cache.get("live"));
+        assertNotNull(cache.get("new"));
+    }
+
+    @Test
+    void testInvalidate_ShouldDropEntry() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10);
+        cache.put("token", claimsExpiringIn(60_000));
+
+        cache.invalidate("token");
+
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    void testDisabledCache_ShouldNeverHit() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(0);
+        cache.put("token", claimsExpiringIn(60_000));
+
+        assertNull(cache.get("token"));
+    }
+}
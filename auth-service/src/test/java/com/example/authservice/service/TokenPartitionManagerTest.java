@@ -0,0 +1,52 @@
+package com.example.authservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenPartitionManagerTest {
+
+    @Test
+    void testParsePartition_WithDayRange_ShouldReadBothBounds() {
+        TokenPartitionManager.Partition partition = TokenPartitionManager.parsePartition("refresh_tokens_20261016",
+                "FOR VALUES FROM ('2026-10-16 00:00:00+00') TO ('2026-10-17 00:00:00+00')");
+
+        assertEquals("refresh_tokens_20261016", partition.name());
+        assertEquals(Instant.parse("2026-10-16T00:00:00Z"), partition.from());
+        assertEquals(Instant.parse("2026-10-17T00:00:00Z"), partition.to());
+    }
+
+    @Test
+    void testParsePartition_WithFractionalSeconds_ShouldKeepThem() {
+        TokenPartitionManager.Partition partition = TokenPartitionManager.parsePartition("refresh_tokens_legacy",
+                "FOR VALUES FROM ('2026-10-15 23:59:59.5+00') TO ('2026-10-16 00:00:00.123456+00')");
+
+        assertEquals(Instant.parse("2026-10-15T23:59:59.500Z"), partition.from());
+        assertEquals(Instant.parse("2026-10-16T00:00:00.123456Z"), partition.to());
+    }
+
+    @Test
+    void testParsePartition_WithOpenBounds_ShouldLeaveThemNull() {
+        TokenPartitionManager.Partition partition = TokenPartitionManager.parsePartition("refresh_tokens_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-10-16 00:00:00+00')");
+
+        assertNull(partition.from());
+        assertEquals(Instant.parse("2026-10-16T00:00:00Z"), partition.to());
+    }
+
+    @Test
+    void testParsePartition_WithDefaultPartition_ShouldReturnNull() {
+        assertNull(TokenPartitionManager.parsePartition("refresh_tokens_default", "DEFAULT"));
+    }
+
+    @Test
+    void testOverlaps_ShouldTreatUpperBoundAsExclusive() {
+        TokenPartitionManager.Partition partition = TokenPartitionManager.parsePartition("refresh_tokens_20261016",
+                "FOR VALUES FROM ('2026-10-16 00:00:00+00') TO ('2026-10-17 00:00:00+00')");
+
+        assertTrue(partition.overlaps(Instant.parse("2026-10-16T12:00:00Z"), Instant.parse("2026-10-18T00:00:00Z")));
+        assertFalse(partition.overlaps(Instant.parse("2026-10-17T00:00:00Z"), Instant.parse("2026-10-18T00:00:00Z")));
+    }
+}
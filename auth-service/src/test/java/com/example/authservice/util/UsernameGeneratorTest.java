@@ -0,0 +1,62 @@
+package com.example.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsernameGeneratorTest {
+
+    private final UsernameGenerator usernameGenerator = new UsernameGenerator();
+
+    @Test
+    void testPickAvailableUsername_WithFreeBase_ShouldReturnBase() {
+        assertEquals("jane", usernameGenerator.pickAvailableUsername("jane", false, List.of(1, 2)));
+    }
+
+    @Test
+    void testPickAvailableUsername_WithTakenBase_ShouldReturnFirstSuffix() {
+        assertEquals("jane_1", usernameGenerator.pickAvailableUsername("jane", true, Collections.emptyList()));
+    }
+
+    @Test
+    void testPickAvailableUsername_ShouldReturnLowestFreeSuffix() {
+        assertEquals("jane_3", usernameGenerator.pickAvailableUsername("jane", true, List.of(1, 2, 4)));
+    }
+
+    @Test
+    void testPickAvailableUsername_WithLongBase_ShouldKeepSuffixesWithinMaxLength() {
+        String base = "a".repeat(30);
+
+        String picked = usernameGenerator.pickAvailableUsername(base, true, List.of(1));
+
+        assertEquals("a".repeat(25) + "_2", picked);
+        assertTrue(usernameGenerator.isValidUsername(picked));
+    }
+
+    @Test
+    void testPickAvailableUsername_ShouldUseStemSharedWithAvailabilityQuery() {
+        String base = "b".repeat(28);
+        String stem = usernameGenerator.getSuffixStem(base);
+
+        String picked = usernameGenerator.pickAvailableUsername(base, true, List.of(1));
+
+        assertTrue(picked.startsWith(stem + "_"));
+        // Even the largest suffix fits without truncating the stem
+        assertEquals(stem + "_" + UsernameGenerator.MAX_SUFFIX,
+                usernameGenerator.generateUniqueUsername(stem, UsernameGenerator.MAX_SUFFIX));
+    }
+
+    @Test
+    void testPickAvailableUsername_WithEverySuffixTaken_ShouldReturnNull() {
+        List<Integer> allSuffixes = IntStream.rangeClosed(1, UsernameGenerator.MAX_SUFFIX)
+                .boxed()
+                .collect(Collectors.toList());
+
+        assertNull(usernameGenerator.pickAvailableUsername("jane", true, allSuffixes));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.authservice.dto.UserDto;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * auth-service access token hot path: issuing a token at login/refresh, verifying it, and the full
+ * per-request validity check including the revocation tiers.
+ *
+ * Each thread walks a pool of distinct tokens so the claims cache sees many keys, as it does in
+ * production. With claimsCacheMaxSize=0 every call pays the RSA signature check and JSON parse.
+ */
+@State(Scope.Benchmark)
+public class AccessTokenBenchmark {
+
+    @Param({"password", "social"})
+    public String claimsProfile;
+
+    @Param({"0", "10000"})
+    public int claimsCacheMaxSize;
+
+    @Param({"100000"})
+    public int revokedBacklog;
+
+    private TokenFixtures fixtures;
+    private List<Claims> verifiedClaims;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new TokenFixtures(claimsProfile, claimsCacheMaxSize, revokedBacklog);
+        verifiedClaims = new ArrayList<>(fixtures.tokens.size());
+        for (String token : fixtures.tokens) {
+            verifiedClaims.add(fixtures.jwtService.extractAllClaims(token));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            int index = next;
+            next = (next + 1) % TokenFixtures.TOKEN_POOL_SIZE;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public String generateAccessToken(Cursor cursor) {
+        int i = cursor.next();
+        return fixtures.jwtService.generateAccessToken(fixtures.users.get(i), fixtures.additionalClaims.get(i));
+    }
+
+    @Benchmark
+    public Claims extractAllClaims(Cursor cursor) {
+        return fixtures.jwtService.extractAllClaims(fixtures.tokens.get(cursor.next()));
+    }
+
+    @Benchmark
+    public boolean isTokenValid(Cursor cursor) {
+        int i = cursor.next();
+        UserDto user = fixtures.users.get(i);
+        return fixtures.jwtService.isTokenValid(fixtures.tokens.get(i), user);
+    }
+
+    /**
+     * Revocation tiers alone on already verified claims; one token in REVOKED_STRIDE is revoked
+     */
+    @Benchmark
+    public boolean isTokenRevoked(Cursor cursor) {
+        return fixtures.jwtService.isTokenRevoked(verifiedClaims.get(cursor.next()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * address-service verification of auth-service tokens against the cached JWKS, as done by its
+ * authentication filter on every request
+ */
+@State(Scope.Benchmark)
+public class AddressJwtBenchmark {
+
+    @Param({"password", "social"})
+    public String claimsProfile;
+
+    private TokenFixtures fixtures;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new TokenFixtures(claimsProfile, 0, 0);
+        // Load the key set before measuring, as a warm instance would have it
+        fixtures.addressJwtUtil.validateToken(fixtures.tokens.get(0));
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            int index = next;
+            next = (next + 1) % TokenFixtures.TOKEN_POOL_SIZE;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public Boolean validateToken(Cursor cursor) {
+        return fixtures.addressJwtUtil.validateToken(fixtures.tokens.get(cursor.next()));
+    }
+
+    @Benchmark
+    public Long extractUserId(Cursor cursor) {
+        return fixtures.addressJwtUtil.extractUserId(fixtures.tokens.get(cursor.next()));
+    }
+}
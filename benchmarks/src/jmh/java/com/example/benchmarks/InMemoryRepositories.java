@@ -0,0 +1,103 @@
+package com.example.benchmarks;
+
+import com.example.authservice.entity.SigningKey;
+import com.example.authservice.repository.RevokedAccessTokenRepository;
+import com.example.authservice.repository.SigningKeyRepository;
+import com.example.authservice.repository.UserTokenEpochRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Minimal stand-ins for the Spring Data repositories the token services use, so the services can
+ * be built without a database. Only the methods reached on the benchmarked paths are implemented.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static SigningKeyRepository signingKeys() {
+        List<SigningKey> keys = Collections.synchronizedList(new ArrayList<>());
+        return proxy(SigningKeyRepository.class, Map.of(
+                "findActiveKeys", args -> new ArrayList<>(keys),
+                "deleteExpiredKeys", args -> null,
+                "save", args -> {
+                    SigningKey key = (SigningKey) args[0];
+                    if (key.getCreatedAt() == null) {
+                        key.setCreatedAt(LocalDateTime.now());
+                    }
+                    keys.add(0, key);
+                    return key;
+                }));
+    }
+
+    static RevokedAccessTokenRepository revokedAccessTokens(List<UUID> revokedJtis) {
+        return proxy(RevokedAccessTokenRepository.class, Map.of(
+                "findActiveJtis", args -> revokedJtis,
+                "findJtisRevokedSince", args -> List.of(),
+                "existsByJti", args -> revokedJtis.contains((UUID) args[0])));
+    }
+
+    static UserTokenEpochRepository userTokenEpochs() {
+        return proxy(UserTokenEpochRepository.class, Map.of(
+                "findActiveEpochs", args -> List.of(),
+                "findUpdatedSince", args -> List.of()));
+    }
+
+    /**
+     * JdbcTemplate for the advisory lock around key rotation, which has nothing to guard in one JVM
+     */
+    static JdbcTemplate locksOnly() {
+        return new JdbcTemplate() {
+            @Override
+            public void execute(String sql) {
+            }
+        };
+    }
+
+    static PlatformTransactionManager noTransactions() {
+        return new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            if (method.getName().equals("toString")) {
+                return "InMemory" + type.getSimpleName();
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+        }));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.benchmarks;
+
+import com.example.addressservice.security.JwksKeyResolver;
+import com.example.addressservice.security.JwtUtil;
+import com.example.authservice.dto.UserDto;
+import com.example.authservice.service.JwtService;
+import com.example.authservice.service.RedisTokenBlacklistService;
+import com.example.authservice.service.RevokedTokenFilterService;
+import com.example.authservice.service.SigningKeyService;
+import com.example.authservice.service.TokenBlacklistService;
+import com.example.authservice.service.UserTokenEpochService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Auth-service and address-service token components wired the way the applications wire them,
+ * with in-memory stand-ins for Postgres and Redis, plus a pool of tokens with production-like claims.
+ */
+final class TokenFixtures {
+
+    static final long ACCESS_TOKEN_EXPIRATION = 900_000;
+    static final long REFRESH_TOKEN_EXPIRATION = 604_800_000;
+    static final int TOKEN_POOL_SIZE = 1024;
+    // Every REVOKED_STRIDE-th token in the pool is revoked
+    static final int REVOKED_STRIDE = 16;
+
+    // Meters are recorded on the benchmarked paths as in the services, just not exported
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final SigningKeyService signingKeyService;
+    final JwtService jwtService;
+    final JwtUtil addressJwtUtil;
+    final List<UserDto> users = new ArrayList<>(TOKEN_POOL_SIZE);
+    final List<Map<String, Object>> additionalClaims = new ArrayList<>(TOKEN_POOL_SIZE);
+    final List<String> tokens = new ArrayList<>(TOKEN_POOL_SIZE);
+
+    /**
+     * @param claimsProfile "password" for the login claim set, "social" to add the OAuth2 provider claim
+     * @param claimsCacheMaxSize verified-claims cache size in JwtService, 0 to verify every call
+     * @param revokedBacklog revocations already loaded into the Bloom filter, as after a busy day
+     */
+    TokenFixtures(String claimsProfile, int claimsCacheMaxSize, int revokedBacklog) {
+        this.signingKeyService = new SigningKeyService(InMemoryRepositories.signingKeys(),
+                InMemoryRepositories.locksOnly(), InMemoryRepositories.noTransactions(),
+                "benchmark-secret-benchmark-secret-benchmark", 86_400_000, ACCESS_TOKEN_EXPIRATION, 60_000);
+        this.signingKeyService.refresh();
+
+        List<UUID> revokedJtis = new ArrayList<>(revokedBacklog);
+        for (int i = 0; i < revokedBacklog; i++) {
+            revokedJtis.add(UUID.randomUUID());
+        }
+        Set<String> redisBlacklist = ConcurrentHashMap.newKeySet();
+
+        RevokedTokenFilterService revokedTokenFilter = new RevokedTokenFilterService(
+                InMemoryRepositories.revokedAccessTokens(revokedJtis), 100_000, 0.01, 30_000);
+        revokedTokenFilter.rebuild();
+        revokedJtis.forEach(jti -> redisBlacklist.add(jti.toString()));
+
+        // Redis round trips are out of scope; the lookup itself stays on the path
+        RedisTokenBlacklistService redisBlacklistService =
+                new RedisTokenBlacklistService(null, "auth:blacklist:", ACCESS_TOKEN_EXPIRATION) {
+                    @Override
+                    public boolean checkTokenBlacklisted(String tokenId) {
+                        return redisBlacklist.contains(tokenId);
+                    }
+                };
+        TokenBlacklistService tokenBlacklistService = new TokenBlacklistService(redisBlacklistService,
+                revokedTokenFilter, InMemoryRepositories.revokedAccessTokens(revokedJtis), null,
+                "auth:blacklist:revocations", 100_000, 10_000, meterRegistry);
+        UserTokenEpochService userTokenEpochService = new UserTokenEpochService(
+                InMemoryRepositories.userTokenEpochs(), null, "auth:blacklist:user-epochs",
+                ACCESS_TOKEN_EXPIRATION, 30_000);
+        userTokenEpochService.reload();
+
+        this.jwtService = new JwtService(signingKeyService, ACCESS_TOKEN_EXPIRATION, REFRESH_TOKEN_EXPIRATION,
+                "auth-service", claimsCacheMaxSize, revokedTokenFilter, tokenBlacklistService,
+                userTokenEpochService, meterRegistry);
+
+        // address-service fetches the JWKS over HTTP; serve it straight from the signing keys
+        RestTemplate jwksClient = new RestTemplate() {
+            @Override
+            public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+                return responseType.cast(signingKeyService.getJwks());
+            }
+        };
+        this.addressJwtUtil = new JwtUtil(new JwksKeyResolver(jwksClient,
+                "http://auth-service/.well-known/jwks.json", 3_600_000, 30_000), meterRegistry);
+
+        for (int i = 0; i < TOKEN_POOL_SIZE; i++) {
+            UserDto user = user(i);
+            Map<String, Object> claims = additionalClaims(claimsProfile, i);
+            String token = jwtService.generateAccessToken(user, claims);
+            users.add(user);
+            additionalClaims.add(claims);
+            tokens.add(token);
+
+            if (i % REVOKED_STRIDE == 0) {
+                String jti = jwtService.extractJti(token);
+                revokedTokenFilter.add(UUID.fromString(jti));
+                redisBlacklist.add(jti);
+            }
+        }
+    }
+
+    private static UserDto user(int i) {
+        UserDto user = new UserDto("member." + i + ".runner", "member." + i + ".runner@example-loyalty.com",
+                "Member" + i, "Runner");
+        user.setId(1_000_000L + i);
+        user.setEnabled(true);
+        user.setEmailVerified(i % 3 != 0);
+        return user;
+    }
+
+    private static Map<String, Object> additionalClaims(String claimsProfile, int i) {
+        Map<String, Object> claims = new HashMap<>();
+        if ("social".equals(claimsProfile)) {
+            claims.put("socialProvider", i % 2 == 0 ? "google" : "github");
+        }
+        return claims;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.healthmonitor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Checks a service's dependencies in the background and serves /health from the latest results.
+ *
+ * Each dependency is checked on its own schedule and its own thread, so a slow dependency delays
+ * only its own result. Results are assembled into an immutable snapshot whenever one changes, so
+ * reading health costs the same however many probes hit it. A result older than three intervals,
+ * as left behind by a check that hangs, is reported DOWN.
+ */
+public class HealthMonitor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthMonitor.class);
+
+    public static final String UP = "UP";
+    public static final String DOWN = "DOWN";
+
+    private static final int STALE_AFTER_INTERVALS = 3;
+
+    private final String service;
+    private final String version;
+    private final List<Check> checks = new ArrayList<>();
+    private final Map<String, Result> results = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    private volatile Snapshot snapshot;
+
+    private record Check(String name, Duration interval, Supplier<Map<String, Object>> probe) {
+    }
+
+    private record Result(Map<String, Object> details, boolean up, Instant staleAt) {
+    }
+
+    /**
+     * Latest health: the /health response body and whether every dependency is up
+     */
+    public record Snapshot(Map<String, Object> body, boolean healthy, Instant staleAt) {
+    }
+
+    public HealthMonitor(String service, String version) {
+        this.service = service;
+        this.version = version;
+    }
+
+    /**
+     * Add a dependency check. The probe returns the dependency's details including a "status" of UP
+     * or DOWN; an exception from the probe is reported as DOWN.
+     */
+    public HealthMonitor register(String name, Duration interval, Supplier<Map<String, Object>> probe) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Health monitor already started");
+        }
+        checks.add(new Check(name, interval, probe));
+        return this;
+    }
+
+    /**
+     * Run every check now and then on its interval
+     */
+    public synchronized HealthMonitor start() {
+        Instant now = Instant.now();
+        for (Check check : checks) {
+            Map<String, Object> pending = new LinkedHashMap<>();
+            pending.put("status", DOWN);
+            pending.put("message", "Not checked yet");
+            results.put(check.name(), new Result(pending, false, now.plus(check.interval())));
+        }
+        publish();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(Math.max(1, checks.size()), runnable -> {
+            Thread thread = new Thread(runnable, "health-monitor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Check check : checks) {
+            scheduler.scheduleWithFixedDelay(() -> run(check), 0, check.interval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        logger.info("Health monitor started for {} with checks {}", service, checks.stream().map(Check::name).toList());
+        return this;
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current.staleAt().isBefore(Instant.now())) {
+            // A check stopped reporting; republish so its stale result is marked down
+            synchronized (this) {
+                publish();
+            }
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private void run(Check check) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> details;
+        try {
+            details = new LinkedHashMap<>(check.probe().get());
+        } catch (Exception e) {
+            logger.error("{} health check failed", check.name(), e);
+            details = new LinkedHashMap<>();
+            details.put("status", DOWN);
+            details.put("message", check.name() + " check failed: " + e.getMessage());
+            details.put("error", e.getClass().getSimpleName());
+        }
+        details.putIfAbsent("responseTime", (System.currentTimeMillis() - startTime) + "ms");
+
+        Instant checkedAt = Instant.now();
+        details.put("checkedAt", LocalDateTime.ofInstant(checkedAt, ZoneId.systemDefault()).toString());
+        boolean up = UP.equals(details.get("status"));
+        Instant staleAt = checkedAt.plus(check.interval().multipliedBy(STALE_AFTER_INTERVALS));
+
+        synchronized (this) {
+            Result previous = results.get(check.name());
+            if (previous != null && previous.up() != up) {
+                logger.warn("Dependency {} is now {}", check.name(), up ? UP : DOWN);
+            }
+            results.put(check.name(), new Result(Collections.unmodifiableMap(details), up, staleAt));
+            publish();
+        }
+    }
+
+    private void publish() {
+        Instant now = Instant.now();
+        Map<String, Object> dependencies = new LinkedHashMap<>();
+        boolean healthy = true;
+        Instant staleAt = Instant.MAX;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            if (result.staleAt().isBefore(now)) {
+                Map<String, Object> stale = new LinkedHashMap<>(result.details());
+                stale.put("status", DOWN);
+                stale.put("message", "No result since " + stale.getOrDefault("checkedAt", "startup"));
+                dependencies.put(entry.getKey(), Collections.unmodifiableMap(stale));
+                healthy = false;
+            } else {
+                dependencies.put(entry.getKey(), result.details());
+                healthy &= result.up();
+                if (result.staleAt().isBefore(staleAt)) {
+                    staleAt = result.staleAt();
+                }
+            }
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("service", service);
+        body.put("version", version);
+        body.put("timestamp", LocalDateTime.ofInstant(now, ZoneId.systemDefault()).toString());
+        body.put("dependencies", Collections.unmodifiableMap(dependencies));
+        body.put("status", healthy ? UP : DOWN);
+        snapshot = new Snapshot(Collections.unmodifiableMap(body), healthy, staleAt);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.httpclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of each call, up to the response status, as a histogram per destination.
+ *
+ * Tagged by destination, method, status and outcome but not by URI, since URIs carry ids and would
+ * create a time series per user.
+ */
+class ClientMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    static final String METRIC_NAME = "service.client.requests";
+
+    private final String destination;
+    private final MeterRegistry meterRegistry;
+
+    ClientMetricsInterceptor(String destination, MeterRegistry meterRegistry) {
+        this.destination = destination;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        String outcome = "UNKNOWN";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            HttpStatusCode statusCode = response.getStatusCode();
+            status = String.valueOf(statusCode.value());
+            outcome = outcome(statusCode);
+            return response;
+        } finally {
+            Timer.builder(METRIC_NAME)
+                    .description("Latency of calls to other services")
+                    .tag("client", destination)
+                    .tag("method", request.getMethod().name())
+                    .tag("status", status)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String outcome(HttpStatusCode statusCode) {
+        if (statusCode.is2xxSuccessful()) {
+            return "SUCCESS";
+        }
+        if (statusCode.is4xxClientError()) {
+            return "CLIENT_ERROR";
+        }
+        if (statusCode.is5xxServerError()) {
+            return "SERVER_ERROR";
+        }
+        return statusCode.is3xxRedirection() ? "REDIRECTION" : "INFORMATIONAL";
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.httpclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers the service client factory and call guards in every application that has this module on its classpath
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ServiceRestTemplateFactory serviceRestTemplateFactory(HttpClientProperties properties,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        // Without a registry bean (no actuator) the meters still go to the global registry
+        return new ServiceRestTemplateFactory(properties, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ServiceCallGuards serviceCallGuards(HttpClientProperties properties,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ServiceCallGuards(properties, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.httpclient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection and resilience settings for service-to-service clients, bound from app.http-client.
+ *
+ * Settings under services.&lt;destination&gt; override the defaults for that destination only;
+ * anything left out there falls back to the defaults. Plain numbers are read as milliseconds.
+ */
+@ConfigurationProperties(prefix = "app.http-client")
+public class HttpClientProperties {
+
+    private Settings defaults = Settings.builtIn();
+    private Map<String, Settings> services = new HashMap<>();
+
+    public Settings getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Settings defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Settings> getServices() {
+        return services;
+    }
+
+    public void setServices(Map<String, Settings> services) {
+        this.services = services;
+    }
+
+    /**
+     * Effective settings for a destination: its own overrides on top of the defaults
+     */
+    public Settings settingsFor(String destination) {
+        Settings base = defaults.orElse(Settings.builtIn());
+        Settings overrides = services.get(destination);
+        return overrides != null ? overrides.orElse(base) : base;
+    }
+
+    public static class Settings {
+
+        // Time to establish the TCP connection
+        private Duration connectTimeout;
+        // Time to wait for response data once the request is sent
+        private Duration readTimeout;
+        // Time to wait for a free pooled connection
+        private Duration connectionRequestTimeout;
+        // Pooled connections to the destination
+        private Integer maxConnections;
+        // Idle time after which a pooled connection is closed; keep below the server's keep-alive timeout
+        private Duration keepAlive;
+        // Use the JDK client over HTTP/2 instead of the pooled HTTP/1.1 client
+        private Boolean http2;
+        // Bulkhead: calls allowed in flight at once, and how long a further call waits for a slot
+        private Integer maxConcurrentCalls;
+        private Duration maxWaitForCall;
+        // Circuit breaker: percentage of failed or slow calls in the window that opens the circuit
+        private Integer failureRateThreshold;
+        private Duration slowCallThreshold;
+        private Integer slidingWindowSize;
+        // Time the circuit stays open before letting probe calls through, and how many probes
+        private Duration openStateDuration;
+        private Integer halfOpenCalls;
+
+        static Settings builtIn() {
+            Settings settings = new Settings();
+            settings.connectTimeout = Duration.ofSeconds(2);
+            settings.readTimeout = Duration.ofSeconds(5);
+            settings.connectionRequestTimeout = Duration.ofSeconds(1);
+            settings.maxConnections = 50;
+            settings.keepAlive = Duration.ofSeconds(15);
+            settings.http2 = false;
+            settings.maxConcurrentCalls = 25;
+            settings.maxWaitForCall = Duration.ZERO;
+            settings.failureRateThreshold = 50;
+            settings.slowCallThreshold = Duration.ofSeconds(2);
+            settings.slidingWindowSize = 20;
+            settings.openStateDuration = Duration.ofSeconds(10);
+            settings.halfOpenCalls = 3;
+            return settings;
+        }
+
+        /**
+         * Copy of these settings with unset values taken from fallback
+         */
+        Settings orElse(Settings fallback) {
+            Settings merged = new Settings();
+            merged.connectTimeout = connectTimeout != null ? connectTimeout : fallback.connectTimeout;
+            merged.readTimeout = readTimeout != null ? readTimeout : fallback.readTimeout;
+            merged.connectionRequestTimeout = connectionRequestTimeout != null
+                    ? connectionRequestTimeout : fallback.connectionRequestTimeout;
+            merged.maxConnections = maxConnections != null ? maxConnections : fallback.maxConnections;
+            merged.keepAlive = keepAlive != null ? keepAlive : fallback.keepAlive;
+            merged.http2 = http2 != null ? http2 : fallback.http2;
+            merged.maxConcurrentCalls = maxConcurrentCalls != null ? maxConcurrentCalls : fallback.maxConcurrentCalls;
+            merged.maxWaitForCall = maxWaitForCall != null ? maxWaitForCall : fallback.maxWaitForCall;
+            merged.failureRateThreshold = failureRateThreshold != null
+                    ? failureRateThreshold : fallback.failureRateThreshold;
+            merged.slowCallThreshold = slowCallThreshold != null ? slowCallThreshold : fallback.slowCallThreshold;
+            merged.slidingWindowSize = slidingWindowSize != null ? slidingWindowSize : fallback.slidingWindowSize;
+            merged.openStateDuration = openStateDuration != null ? openStateDuration : fallback.openStateDuration;
+            merged.halfOpenCalls = halfOpenCalls != null ? halfOpenCalls : fallback.halfOpenCalls;
+            return merged;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getConnectionRequestTimeout() {
+            return connectionRequestTimeout;
+        }
+
+        public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+        }
+
+        public Integer getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Boolean getHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(Boolean http2) {
+            this.http2 = http2;
+        }
+
+        public boolean isHttp2() {
+            return Boolean.TRUE.equals(http2);
+        }
+
+        public Integer getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(Integer maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Duration getMaxWaitForCall() {
+            return maxWaitForCall;
+        }
+
+        public void setMaxWaitForCall(Duration maxWaitForCall) {
+            this.maxWaitForCall = maxWaitForCall;
+        }
+
+        public Integer getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(Integer failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        public Integer getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(Integer slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public Duration getOpenStateDuration() {
+            return openStateDuration;
+        }
+
+        public void setOpenStateDuration(Duration openStateDuration) {
+            this.openStateDuration = openStateDuration;
+        }
+
+        public Integer getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(Integer halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+}
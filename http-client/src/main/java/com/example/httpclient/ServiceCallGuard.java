@@ -0,0 +1,47 @@
+package com.example.httpclient;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead for calls to one destination service.
+ *
+ * The bulkhead caps the calls in flight so a slow destination can tie up only that many caller
+ * threads. The circuit opens when too many recent calls failed or were slow, rejects calls while
+ * open, and after the open period lets a few probe calls through to decide whether to close again.
+ * Rejected calls fail at once with {@link ServiceUnavailableException}.
+ */
+public class ServiceCallGuard {
+
+    private final String destination;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    ServiceCallGuard(String destination, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.destination = destination;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        try {
+            return circuitBreaker.executeSupplier(Bulkhead.decorateSupplier(bulkhead, call));
+        } catch (CallNotPermittedException e) {
+            throw new ServiceUnavailableException(destination, "circuit breaker is open", e);
+        } catch (BulkheadFullException e) {
+            throw new ServiceUnavailableException(destination, "too many concurrent calls", e);
+        }
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.httpclient;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link ServiceCallGuard} per destination service, configured from the same
+ * app.http-client settings as its RestTemplate.
+ *
+ * Breaker state, call outcomes and bulkhead capacity are published through the Resilience4j
+ * meters; rejected calls are also counted in service.client.rejected by destination and reason.
+ */
+public class ServiceCallGuards {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceCallGuards.class);
+
+    static final String REJECTED_METRIC_NAME = "service.client.rejected";
+
+    private final HttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+    private final Map<String, ServiceCallGuard> guards = new ConcurrentHashMap<>();
+
+    public ServiceCallGuards(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+    }
+
+    public ServiceCallGuard forDestination(String destination) {
+        return guards.computeIfAbsent(destination, this::create);
+    }
+
+    private ServiceCallGuard create(String destination) {
+        HttpClientProperties.Settings settings = properties.settingsFor(destination);
+
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(settings.getSlidingWindowSize())
+                .minimumNumberOfCalls(Math.max(1, settings.getSlidingWindowSize() / 2))
+                .failureRateThreshold(settings.getFailureRateThreshold())
+                .slowCallRateThreshold(settings.getFailureRateThreshold())
+                .slowCallDurationThreshold(settings.getSlowCallThreshold())
+                .waitDurationInOpenState(settings.getOpenStateDuration())
+                .permittedNumberOfCallsInHalfOpenState(settings.getHalfOpenCalls())
+                // 4xx answers mean the destination is healthy; bulkhead rejections are counted separately
+                .ignoreExceptions(HttpClientErrorException.class, BulkheadFullException.class)
+                .build();
+        BulkheadConfig bulkheadConfig = BulkheadConfig.custom()
+                .maxConcurrentCalls(settings.getMaxConcurrentCalls())
+                .maxWaitDuration(settings.getMaxWaitForCall())
+                .build();
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(destination, circuitBreakerConfig);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(destination, bulkheadConfig);
+
+        Counter circuitOpenRejections = rejectedCounter(destination, "circuit_open");
+        Counter bulkheadRejections = rejectedCounter(destination, "bulkhead_full");
+        circuitBreaker.getEventPublisher()
+                .onCallNotPermitted(event -> circuitOpenRejections.increment())
+                .onStateTransition(event -> logger.warn("Circuit breaker for {}: {}",
+                        destination, event.getStateTransition()));
+        bulkhead.getEventPublisher()
+                .onCallRejected(event -> bulkheadRejections.increment());
+
+        logger.info("Call guard for {}: maxConcurrentCalls={}, failureRateThreshold={}%, slowCallThreshold={}, openStateDuration={}",
+                destination, settings.getMaxConcurrentCalls(), settings.getFailureRateThreshold(),
+                settings.getSlowCallThreshold(), settings.getOpenStateDuration());
+        return new ServiceCallGuard(destination, circuitBreaker, bulkhead);
+    }
+
+    private Counter rejectedCounter(String destination, String reason) {
+        return Counter.builder(REJECTED_METRIC_NAME)
+                .description("Calls to other services rejected without being attempted")
+                .tag("client", destination)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.httpclient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Builds one RestTemplate per destination service.
+ *
+ * Each destination gets its own connection pool with keep-alive, so calls reuse connections instead
+ * of paying TCP setup every time, and its own connect, pool-wait and read timeouts, so a slow service
+ * cannot hold request threads indefinitely. Pooled connections are closed once idle for the keep-alive
+ * time or when the server advertises a shorter one. With http2 set, the JDK client is used instead and
+ * multiplexes calls over a single connection. Call latency and pool usage are published as metrics
+ * tagged with the destination.
+ */
+public class ServiceRestTemplateFactory implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceRestTemplateFactory.class);
+
+    static final String POOL_METRIC_NAME = "service.client.connections";
+
+    // Check a pooled connection is still open before reusing it after this much inactivity
+    private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+
+    private final HttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final List<CloseableHttpClient> pooledClients = new CopyOnWriteArrayList<>();
+
+    public ServiceRestTemplateFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * RestTemplate for calls to the named destination, configured from app.http-client.services.&lt;destination&gt;
+     */
+    public RestTemplate create(String destination) {
+        HttpClientProperties.Settings settings = properties.settingsFor(destination);
+        ClientHttpRequestFactory requestFactory = settings.isHttp2()
+                ? http2RequestFactory(settings)
+                : pooledRequestFactory(destination, settings);
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new ClientMetricsInterceptor(destination, meterRegistry));
+
+        logger.info("HTTP client for {}: http2={}, maxConnections={}, connectTimeout={}, readTimeout={}",
+                destination, settings.isHttp2(), settings.getMaxConnections(),
+                settings.getConnectTimeout(), settings.getReadTimeout());
+        return restTemplate;
+    }
+
+    private ClientHttpRequestFactory pooledRequestFactory(String destination, HttpClientProperties.Settings settings) {
+        int maxConnections = settings.getMaxConnections();
+        TimeValue keepAlive = TimeValue.of(settings.getKeepAlive());
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                // Each client talks to a single destination, so the route limit is the pool size
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.getReadTimeout()))
+                        .setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(settings.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(settings.getReadTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue advertised = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(advertised) && advertised.compareTo(keepAlive) < 0
+                            ? advertised : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive)
+                .build();
+        pooledClients.add(httpClient);
+
+        registerPoolGauge(destination, "leased", connectionManager, cm -> cm.getTotalStats().getLeased());
+        registerPoolGauge(destination, "available", connectionManager, cm -> cm.getTotalStats().getAvailable());
+        registerPoolGauge(destination, "pending", connectionManager, cm -> cm.getTotalStats().getPending());
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    private ClientHttpRequestFactory http2RequestFactory(HttpClientProperties.Settings settings) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(settings.getConnectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(settings.getReadTimeout());
+        return requestFactory;
+    }
+
+    private void registerPoolGauge(String destination, String state, PoolingHttpClientConnectionManager connectionManager,
+                                   ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder(POOL_METRIC_NAME, connectionManager, value)
+                .description("Pooled connections to other services")
+                .tag("client", destination)
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        for (CloseableHttpClient httpClient : pooledClients) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close HTTP client: {}", e.getMessage());
+            }
+        }
+        pooledClients.clear();
+    }
+}
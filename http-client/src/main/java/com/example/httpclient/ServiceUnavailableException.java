@@ -0,0 +1,22 @@
+package com.example.httpclient;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * A call to another service was rejected without being attempted, because its circuit is open or
+ * its bulkhead is full. Treated like any other I/O failure by callers that handle those.
+ */
+public class ServiceUnavailableException extends ResourceAccessException {
+
+    private final String destination;
+
+    public ServiceUnavailableException(String destination, String reason, Throwable cause) {
+        super(destination + " unavailable: " + reason);
+        initCause(cause);
+        this.destination = destination;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+}
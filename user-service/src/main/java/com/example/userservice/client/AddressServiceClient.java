@@ -3,6 +3,7 @@ package com.example.userservice.client;
 import com.example.userservice.dto.AddressDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -22,7 +23,7 @@ public class AddressServiceClient {
     private final RestTemplate restTemplate;
     private final String addressServiceUrl;
     
-    public AddressServiceClient(RestTemplate restTemplate, 
+    public AddressServiceClient(@Qualifier("addressServiceRestTemplate") RestTemplate restTemplate,
                                @Value("${address.service.url:http://localhost:8083}") String addressServiceUrl) {
         this.restTemplate = restTemplate;
         this.addressServiceUrl = addressServiceUrl;
@@ -11,7 +11,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
 @RestController
 @RequestMapping("/internal/users")
@@ -76,6 +78,43 @@ public class InternalUserController {
         }
     }
     
+    /**
+     * Report whether base is taken and which numeric suffixes of stem (stem_1, stem_2, ...) are taken,
+     * so callers can pick a free username without probing candidates one by one
+     */
+    @GetMapping("/username-availability")
+    public ResponseEntity<UsernameAvailabilityResponse> getUsernameAvailability(@RequestParam String base,
+                                                                                @RequestParam(required = false) String stem) {
+        try {
+            String suffixStem = stem != null && !stem.isEmpty() ? stem : base;
+            String suffixPrefix = suffixStem + "_";
+            
+            boolean baseTaken = false;
+            TreeSet<Integer> takenSuffixes = new TreeSet<>();
+            for (String username : userService.findUsernamesByBaseOrStem(base, suffixStem)) {
+                if (username.equals(base)) {
+                    baseTaken = true;
+                }
+                if (username.startsWith(suffixPrefix)) {
+                    String suffix = username.substring(suffixPrefix.length());
+                    if (!suffix.isEmpty() && suffix.length() <= UserService.MAX_SUFFIX_DIGITS && suffix.chars().allMatch(Character::isDigit)) {
+                        takenSuffixes.add(Integer.parseInt(suffix));
+                    }
+                }
+            }
+            
+            UsernameAvailabilityResponse response = new UsernameAvailabilityResponse();
+            response.setBase(base);
+            response.setStem(suffixStem);
+            response.setBaseTaken(baseTaken);
+            response.setTakenSuffixes(List.copyOf(takenSuffixes));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error checking username availability for: {}", base, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     @PostMapping
     public ResponseEntity<UserDto> createUser(@RequestBody UserDto userDto) {
         try {
@@ -159,6 +198,22 @@ public class InternalUserController {
         public void setProviderUserId(String providerUserId) { this.providerUserId = providerUserId; }
     }
     
+    public static class UsernameAvailabilityResponse {
+        private String base;
+        private String stem;
+        private boolean baseTaken;
+        private List<Integer> takenSuffixes;
+        
+        public String getBase() { return base; }
+        public void setBase(String base) { this.base = base; }
+        public String getStem() { return stem; }
+        public void setStem(String stem) { this.stem = stem; }
+        public boolean isBaseTaken() { return baseTaken; }
+        public void setBaseTaken(boolean baseTaken) { this.baseTaken = baseTaken; }
+        public List<Integer> getTakenSuffixes() { return takenSuffixes; }
+        public void setTakenSuffixes(List<Integer> takenSuffixes) { this.takenSuffixes = takenSuffixes; }
+    }
+    
     public static class SocialLinkRequest {
         private Long userId;
         private String provider;
@@ -0,0 +1,219 @@
+package com.example.userservice.event;
+
+import com.example.userservice.entity.User;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * User lifecycle event published on the user-events topic.
+ * Consumers (address-service, auth-service's identity projection) deduplicate by id
+ * and order updates for the same user by occurredAt.
+ */
+public class UserEvent {
+    
+    public static final String USER_CREATED = "USER_CREATED";
+    public static final String USER_UPDATED = "USER_UPDATED";
+    public static final String USER_DELETED = "USER_DELETED";
+    
+    @JsonProperty("id")
+    private UUID id;
+    
+    @JsonProperty("aggregateType")
+    private String aggregateType;
+    
+    @JsonProperty("aggregateId")
+    private String aggregateId;
+    
+    @JsonProperty("type")
+    private String type;
+    
+    @JsonProperty("payload")
+    private UserPayload payload;
+    
+    @JsonProperty("occurredAt")
+    private LocalDateTime occurredAt;
+    
+    // Default constructor
+    public UserEvent() {}
+    
+    // Constructor
+    public UserEvent(String type, User user) {
+        this.id = UUID.randomUUID();
+        this.aggregateType = "User";
+        this.aggregateId = user.getId().toString();
+        this.type = type;
+        this.payload = new UserPayload(user);
+        this.occurredAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public String getAggregateType() {
+        return aggregateType;
+    }
+    
+    public void setAggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+    
+    public String getAggregateId() {
+        return aggregateId;
+    }
+    
+    public void setAggregateId(String aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public UserPayload getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(UserPayload payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+    
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+    
+    // Inner class for user payload
+    public static class UserPayload {
+        
+        @JsonProperty("id")
+        private Long id;
+        
+        @JsonProperty("username")
+        private String username;
+        
+        @JsonProperty("email")
+        private String email;
+        
+        @JsonProperty("firstName")
+        private String firstName;
+        
+        @JsonProperty("lastName")
+        private String lastName;
+        
+        @JsonProperty("phoneNumber")
+        private String phoneNumber;
+        
+        @JsonProperty("dateOfBirth")
+        private String dateOfBirth;
+        
+        @JsonProperty("createdAt")
+        private LocalDateTime createdAt;
+        
+        @JsonProperty("updatedAt")
+        private LocalDateTime updatedAt;
+        
+        // Default constructor
+        public UserPayload() {}
+        
+        // Constructor
+        public UserPayload(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.firstName = user.getFirstName();
+            this.lastName = user.getLastName();
+            this.phoneNumber = user.getPhoneNumber();
+            this.dateOfBirth = user.getDateOfBirth() != null ? user.getDateOfBirth().toString() : null;
+            this.createdAt = user.getCreatedAt();
+            this.updatedAt = user.getUpdatedAt();
+        }
+        
+        // Getters and Setters
+        public Long getId() {
+            return id;
+        }
+        
+        public void setId(Long id) {
+            this.id = id;
+        }
+        
+        public String getUsername() {
+            return username;
+        }
+        
+        public void setUsername(String username) {
+            this.username = username;
+        }
+        
+        public String getEmail() {
+            return email;
+        }
+        
+        public void setEmail(String email) {
+            this.email = email;
+        }
+        
+        public String getFirstName() {
+            return firstName;
+        }
+        
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+        
+        public String getLastName() {
+            return lastName;
+        }
+        
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+        
+        public String getPhoneNumber() {
+            return phoneNumber;
+        }
+        
+        public void setPhoneNumber(String phoneNumber) {
+            this.phoneNumber = phoneNumber;
+        }
+        
+        public String getDateOfBirth() {
+            return dateOfBirth;
+        }
+        
+        public void setDateOfBirth(String dateOfBirth) {
+            this.dateOfBirth = dateOfBirth;
+        }
+        
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+        
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+        
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+        
+        public void setUpdatedAt(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.example.userservice.repository;
 
 import com.example.userservice.entity.OutboxEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,4 +20,70 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>
     List<OutboxEvent> findPendingEventsWithLimit(int limit);
     
     List<OutboxEvent> findByAggregateIdAndAggregateType(String aggregateId, String aggregateType);
-}
\ No newline at end of file
+    
+    long countByStatus(OutboxEvent.OutboxStatus status);
+    
+    /**
+     * Lease up to limit pending events to owner, oldest first.
+     *
+     * Rows being claimed by another worker are skipped rather than waited for. An event is not
+     * claimed while an earlier event of the same aggregate is leased elsewhere, and the advisory
+     * lock keeps two concurrent claims from splitting one aggregate's events, so each aggregate's
+     * events are published in order by a single worker. A lease left by a crashed worker expires
+     * and its events are claimed again; claimed_until also holds back events waiting to be retried.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE outbox_events SET claimed_by = :owner, claimed_until = now() + make_interval(secs => :leaseSeconds)
+            WHERE id IN (
+                SELECT o.id FROM outbox_events o
+                WHERE o.status = 'PENDING'
+                  AND (o.claimed_until IS NULL OR o.claimed_until < now())
+                  AND NOT EXISTS (
+                      SELECT 1 FROM outbox_events e
+                      WHERE e.aggregate_id = o.aggregate_id AND e.aggregate_type = o.aggregate_type
+                        AND e.status = 'PENDING' AND e.id < o.id AND e.claimed_until >= now())
+                  AND pg_try_advisory_xact_lock(hashtext(o.aggregate_type || ':' || o.aggregate_id))
+                ORDER BY o.id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<OutboxEvent> claimPendingEvents(String owner, double leaseSeconds, int limit);
+    
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE outbox_events SET status = 'PROCESSED', processed_at = now(), claimed_by = NULL, claimed_until = NULL
+            WHERE id IN (:ids) AND claimed_by = :owner
+            """, nativeQuery = true)
+    int markProcessed(Collection<Long> ids, String owner);
+    
+    /**
+     * Release events Kafka did not acknowledge for another attempt after an exponential delay,
+     * or mark them failed once they have used up maxAttempts
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE outbox_events SET attempts = attempts + 1,
+                status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END,
+                claimed_by = NULL,
+                claimed_until = CASE WHEN attempts + 1 >= :maxAttempts THEN NULL
+                    ELSE now() + make_interval(secs => :retryDelaySeconds * power(2, attempts)) END
+            WHERE id IN (:ids) AND claimed_by = :owner
+            """, nativeQuery = true)
+    int markForRetry(Collection<Long> ids, String owner, int maxAttempts, double retryDelaySeconds);
+    
+    /**
+     * Give back events held behind an earlier event of their aggregate that is waiting to be
+     * retried, without counting an attempt; that event's lease keeps them from being claimed first
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE outbox_events SET claimed_by = NULL, claimed_until = NULL
+            WHERE id IN (:ids) AND claimed_by = :owner
+            """, nativeQuery = true)
+    int release(Collection<Long> ids, String owner);
+}
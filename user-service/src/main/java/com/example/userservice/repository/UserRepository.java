@@ -20,6 +20,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByUsername(String username);
     
+    @Query("SELECT u.username FROM User u WHERE u.username = :base "
+            + "OR (u.username LIKE :stemPattern ESCAPE '!' AND LENGTH(u.username) <= :maxLength)")
+    java.util.List<String> findUsernamesByBaseOrStemPattern(@Param("base") String base,
+                                                            @Param("stemPattern") String stemPattern,
+                                                            @Param("maxLength") int maxLength);
+    
     boolean existsByEmail(String email);
     
     @Query("SELECT u FROM User u WHERE u.username LIKE %:keyword% OR u.email LIKE %:keyword% OR u.firstName LIKE %:keyword% OR u.lastName LIKE %:keyword%")
@@ -0,0 +1,116 @@
+package com.example.userservice.service;
+
+import com.example.userservice.client.AddressServiceClient;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.DescribeClusterOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Probes for user-service's dependencies, run in the background by the health monitor
+ */
+@Component
+public class DependencyHealthChecks {
+
+    private final DataSource dataSource;
+    private final AddressServiceClient addressServiceClient;
+    private final String kafkaBootstrapServers;
+    private final long timeout;
+
+    // Kept open between checks instead of connecting a new Kafka client every time
+    private AdminClient kafkaAdminClient;
+
+    public DependencyHealthChecks(DataSource dataSource,
+                                  AddressServiceClient addressServiceClient,
+                                  @Value("${spring.kafka.bootstrap-servers}") String kafkaBootstrapServers,
+                                  @Value("${app.health.timeout:2000}") long timeout) {
+        this.dataSource = dataSource;
+        this.addressServiceClient = addressServiceClient;
+        this.kafkaBootstrapServers = kafkaBootstrapServers;
+        this.timeout = timeout;
+    }
+
+    public Map<String, Object> checkDatabase() {
+        Map<String, Object> dbHealth = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean isValid = connection.isValid((int) Math.max(1, timeout / 1000));
+            dbHealth.put("status", isValid ? "UP" : "DOWN");
+            dbHealth.put("message", isValid ? "Database connection successful" : "Database connection invalid");
+        } catch (Exception e) {
+            dbHealth.put("status", "DOWN");
+            dbHealth.put("message", "Database connection failed: " + e.getMessage());
+            dbHealth.put("error", e.getClass().getSimpleName());
+        }
+        return dbHealth;
+    }
+
+    public Map<String, Object> checkKafka() {
+        Map<String, Object> kafkaHealth = new HashMap<>();
+        kafkaHealth.put("bootstrapServers", kafkaBootstrapServers);
+        try {
+            // Asks a broker for the cluster members, which needs a live connection
+            int brokers = kafkaAdminClient()
+                    .describeCluster(new DescribeClusterOptions().timeoutMs((int) timeout))
+                    .nodes()
+                    .get(timeout, TimeUnit.MILLISECONDS)
+                    .size();
+            kafkaHealth.put("status", brokers > 0 ? "UP" : "DOWN");
+            kafkaHealth.put("message", brokers > 0 ? "Kafka connection successful" : "No Kafka brokers available");
+            kafkaHealth.put("brokers", brokers);
+        } catch (Exception e) {
+            kafkaHealth.put("status", "DOWN");
+            kafkaHealth.put("message", "Kafka connection failed: " + e.getMessage());
+            kafkaHealth.put("error", e.getClass().getSimpleName());
+        }
+        return kafkaHealth;
+    }
+
+    public Map<String, Object> checkAddressService() {
+        Map<String, Object> addressServiceHealth = new HashMap<>();
+        try {
+            ResponseEntity<Map> response = addressServiceClient.getHealth();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                addressServiceHealth.put("status", "UP");
+                addressServiceHealth.put("message", "Address Service connection successful");
+                addressServiceHealth.put("addressServiceStatus", response.getBody().get("status"));
+            } else {
+                addressServiceHealth.put("status", "DOWN");
+                addressServiceHealth.put("message", "Address Service returned non-2xx status: " + response.getStatusCode());
+            }
+        } catch (Exception e) {
+            addressServiceHealth.put("status", "DOWN");
+            addressServiceHealth.put("message", "Address Service connection failed: " + e.getMessage());
+            addressServiceHealth.put("error", e.getClass().getSimpleName());
+        }
+        return addressServiceHealth;
+    }
+
+    private synchronized AdminClient kafkaAdminClient() {
+        if (kafkaAdminClient == null) {
+            Properties props = new Properties();
+            props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaBootstrapServers);
+            props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) timeout);
+            props.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) timeout);
+            kafkaAdminClient = AdminClient.create(props);
+        }
+        return kafkaAdminClient;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (kafkaAdminClient != null) {
+            kafkaAdminClient.close(Duration.ofSeconds(1));
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.OutboxEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox relay for cdc mode: streams inserts into outbox_events from Postgres logical replication
+ * (pgoutput) to Kafka in commit order, without querying or updating the table.
+ *
+ * The replication slot records how far the relay has got. A transaction's position is confirmed
+ * to the slot only after Kafka acknowledged every event in it and in the transactions before it,
+ * so after a restart or a failed send the stream resumes at the first unconfirmed transaction and
+ * republishes it. Only one connection can stream from a slot, so with several instances one
+ * relays and the others retry until it goes away.
+ *
+ * Outbox rows are deleted as they are written in this mode, so an insert committed while no slot
+ * exists would be lost. The slot is therefore created, and logical decoding checked, while the
+ * application context starts, and a failure stops startup instead of dropping events.
+ */
+@Component
+public class OutboxCdcRelay implements SmartLifecycle, InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxCdcRelay.class);
+
+    private static final String TABLE = "outbox_events";
+    private static final long IDLE_WAIT_MILLIS = 10;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    // Postgres text output for timestamptz, e.g. 2024-01-31 10:15:30.123456+00
+    private static final DateTimeFormatter TIMESTAMPTZ = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+
+    private final OutboxService outboxService;
+    private final DataSource dataSource;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final String slot;
+    private final String publication;
+    private final int maxInFlight;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    private record PendingCommit(LogSequenceNumber endLsn, List<CompletableFuture<SendResult<String, String>>> sends) {
+
+        boolean isDone() {
+            return sends.stream().allMatch(CompletableFuture::isDone);
+        }
+
+        boolean failed() {
+            return sends.stream().anyMatch(CompletableFuture::isCompletedExceptionally);
+        }
+    }
+
+    public OutboxCdcRelay(OutboxService outboxService,
+                          DataSource dataSource,
+                          DataSourceProperties dataSourceProperties,
+                          @Value("${outbox.publisher.enabled:true}") boolean publisherEnabled,
+                          @Value("${outbox.publisher.mode:polling}") String mode,
+                          @Value("${outbox.cdc.slot:outbox_relay}") String slot,
+                          @Value("${outbox.cdc.publication:outbox_publication}") String publication,
+                          @Value("${outbox.cdc.max-in-flight:1000}") int maxInFlight) {
+        this.outboxService = outboxService;
+        this.dataSource = dataSource;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = publisherEnabled && "cdc".equalsIgnoreCase(mode);
+        this.slot = slot;
+        this.publication = publication;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            String walLevel = queryString(connection, "SHOW wal_level", null);
+            if (!"logical".equals(walLevel)) {
+                throw new IllegalStateException("Outbox CDC mode needs wal_level=logical, the database has " + walLevel);
+            }
+            if (queryString(connection, "SELECT pubname FROM pg_publication WHERE pubname = ?", publication) == null) {
+                throw new IllegalStateException("Outbox CDC publication " + publication + " does not exist");
+            }
+            createSlotIfMissing(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot set up replication slot " + slot + " for the outbox CDC relay", e);
+        }
+    }
+
+    private static String queryString(Connection connection, String sql, String parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "outbox-cdc");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                try (Connection connection = dataSource.getConnection()) {
+                    createSlotIfMissing(connection);
+                }
+                stream();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Outbox CDC stream stopped, resuming from slot {} in {}ms: {}",
+                        slot, RECONNECT_DELAY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void createSlotIfMissing(Connection connection) throws SQLException {
+        if (queryString(connection, "SELECT slot_name FROM pg_replication_slots WHERE slot_name = ?", slot) != null) {
+            return;
+        }
+        // Fails without the REPLICATION privilege
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_create_logical_replication_slot(?, 'pgoutput')")) {
+            statement.setString(1, slot);
+            statement.execute();
+        }
+        logger.info("Created replication slot {}", slot);
+    }
+
+    private void stream() throws SQLException, InterruptedException {
+        Properties properties = new Properties();
+        PGProperty.USER.set(properties, dataSourceProperties.determineUsername());
+        PGProperty.PASSWORD.set(properties, dataSourceProperties.determinePassword());
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(properties, "10");
+        PGProperty.REPLICATION.set(properties, "database");
+        PGProperty.PREFER_QUERY_MODE.set(properties, "simple");
+
+        try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(), properties)) {
+            PGReplicationStream stream = connection.unwrap(PGConnection.class).getReplicationAPI()
+                    .replicationStream()
+                    .logical()
+                    .withSlotName(slot)
+                    .withSlotOption("proto_version", 1)
+                    .withSlotOption("publication_names", publication)
+                    .withStatusInterval(10, TimeUnit.SECONDS)
+                    .start();
+            logger.info("Streaming outbox events from replication slot {}", slot);
+
+            PgOutputDecoder decoder = new PgOutputDecoder();
+            Deque<PendingCommit> inFlight = new ArrayDeque<>();
+            List<CompletableFuture<SendResult<String, String>>> transaction = null;
+            int inFlightEvents = 0;
+            try {
+                while (running) {
+                    ByteBuffer message = stream.readPending();
+                    if (message == null) {
+                        inFlightEvents -= confirm(stream, inFlight, transaction == null);
+                        Thread.sleep(IDLE_WAIT_MILLIS);
+                        continue;
+                    }
+
+                    PgOutputDecoder.Message decoded = decoder.decode(message);
+                    if (decoded instanceof PgOutputDecoder.Begin) {
+                        transaction = new ArrayList<>();
+                    } else if (decoded instanceof PgOutputDecoder.Insert insert
+                            && transaction != null && TABLE.equals(insert.table())) {
+                        transaction.add(outboxService.publishEvent(toEvent(insert.columns())));
+                        inFlightEvents++;
+                    } else if (decoded instanceof PgOutputDecoder.Commit commit && transaction != null) {
+                        inFlight.add(new PendingCommit(LogSequenceNumber.valueOf(commit.endLsn()), transaction));
+                        transaction = null;
+                        inFlightEvents -= confirm(stream, inFlight, true);
+                    }
+
+                    // Stop reading while Kafka is behind, so unacknowledged events do not pile up in memory
+                    while (inFlightEvents > maxInFlight && !inFlight.isEmpty()) {
+                        CompletableFuture.allOf(inFlight.peek().sends().toArray(CompletableFuture[]::new))
+                                .exceptionally(error -> null)
+                                .join();
+                        inFlightEvents -= confirm(stream, inFlight, transaction == null);
+                    }
+                }
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * Confirm to the slot every transaction at the head of the queue whose events Kafka has
+     * acknowledged, and return how many events that released
+     */
+    private int confirm(PGReplicationStream stream, Deque<PendingCommit> inFlight, boolean betweenTransactions)
+            throws SQLException {
+        LogSequenceNumber confirmed = null;
+        int released = 0;
+        while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+            PendingCommit commit = inFlight.poll();
+            if (commit.failed()) {
+                // Reconnecting replays from the last confirmed transaction, this one included
+                throw new IllegalStateException("Kafka did not acknowledge outbox events committed at " + commit.endLsn());
+            }
+            confirmed = commit.endLsn();
+            released += commit.sends().size();
+        }
+        if (inFlight.isEmpty() && betweenTransactions) {
+            // Nothing outstanding, so the slot can move past WAL without outbox changes and need not retain it
+            LogSequenceNumber received = stream.getLastReceiveLSN();
+            if (received != LogSequenceNumber.INVALID_LSN
+                    && (confirmed == null || received.asLong() > confirmed.asLong())) {
+                confirmed = received;
+            }
+        }
+        if (confirmed != null) {
+            stream.setFlushedLSN(confirmed);
+            stream.setAppliedLSN(confirmed);
+        }
+        return released;
+    }
+
+    private static OutboxEvent toEvent(Map<String, String> columns) {
+        OutboxEvent event = new OutboxEvent(columns.get("aggregate_id"), columns.get("aggregate_type"),
+                columns.get("event_type"), columns.get("payload"));
+        event.setId(Long.valueOf(columns.get("id")));
+        String createdAt = columns.get("created_at");
+        if (createdAt != null) {
+            try {
+                event.setCreatedAt(OffsetDateTime.parse(createdAt, TIMESTAMPTZ)
+                        .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+            } catch (DateTimeParseException e) {
+                logger.debug("Unparseable created_at {} on outbox event {}", createdAt, event.getId());
+            }
+        }
+        return event;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.userservice.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wakes the outbox relay as soon as a transaction that wrote outbox events commits.
+ *
+ * An insert trigger on outbox_events notifies the outbox_events channel, and this listener holds
+ * a Postgres connection that LISTENs on it. The connection is opened outside the pool because it
+ * stays checked out for the life of the service. If it drops, the listener reconnects and runs
+ * the relay once for events written while nothing was listening.
+ */
+@Component
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    private static final String CHANNEL = "outbox_events";
+    // How long one wait for notifications blocks, which bounds how long stopping takes
+    private static final int WAIT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final OutboxService outboxService;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public OutboxNotificationListener(OutboxService outboxService,
+                                      DataSourceProperties dataSourceProperties,
+                                      @Value("${outbox.publisher.enabled:true}") boolean publisherEnabled,
+                                      @Value("${outbox.publisher.mode:polling}") String mode,
+                                      @Value("${outbox.publisher.notify:true}") boolean notify) {
+        this.outboxService = outboxService;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = publisherEnabled && notify && !"cdc".equalsIgnoreCase(mode);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("Outbox notifications disabled; relying on polling");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "outbox-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                logger.info("Listening for outbox notifications on {}", CHANNEL);
+
+                wakeRelay();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(WAIT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        wakeRelay();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Outbox notification connection failed, reconnecting in {}ms: {}",
+                        RECONNECT_DELAY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void wakeRelay() {
+        try {
+            outboxService.publishPendingEvents();
+        } catch (RuntimeException e) {
+            // The scheduled poll will pick the events up
+            logger.error("Outbox relay failed after notification", e);
+        }
+    }
+}
@@ -4,39 +4,161 @@ import com.example.userservice.entity.OutboxEvent;
 import com.example.userservice.repository.OutboxEventRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Writes events to the outbox in the caller's transaction and relays them to Kafka.
+ *
+ * Each relay worker leases a batch of pending events, sends the whole batch before waiting for the
+ * broker, and then marks the acknowledged events processed in one update, repeating until the
+ * outbox is drained. Events Kafka did not acknowledge stay pending and are retried with backoff
+ * until they run out of attempts and are marked failed. An aggregate's events after a failed one
+ * are handed back rather than marked processed, so they are published again after it. The stored JSON is published as is, with
+ * the event's type and outbox ID in record headers. Leases are taken with
+ * FOR UPDATE SKIP LOCKED, so the workers of every user-service instance drain the outbox in
+ * parallel without publishing the same event twice, and an aggregate's events stay in order.
+ *
+ * New events wake the relay through {@link OutboxNotificationListener}; the scheduled poll is a
+ * safety net for missed notifications, retries and expired leases.
+ *
+ * In cdc mode {@link OutboxCdcRelay} streams inserts from the database's logical replication, and
+ * the outbox row is deleted in the transaction that wrote it, since the insert is already in the
+ * WAL. The scheduled poll keeps running without notifications to drain rows still pending from
+ * before the switch or from instances in polling mode; rows written in cdc mode never reach it.
+ */
 @Service
-@Transactional
-public class OutboxService {
+public class OutboxService implements DisposableBean {
     
     private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
     
     private final OutboxEventRepository outboxEventRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
     
+    private final boolean enabled;
+    // Delete rows as they are written, only while the CDC relay is actually running
+    private final boolean deleteOnWrite;
+    private final int batchSize;
+    private final double leaseSeconds;
+    private final long acknowledgementTimeout;
+    private final int maxAttempts;
+    private final double retryDelaySeconds;
+    private final int workers;
+    private final ExecutorService relayExecutor;
+    // Identifies this instance's leases; unique per start so a restarted instance does not act on old leases
+    private final String owner;
+    
+    // Pending events as of the last publisher run, so scrapes do not query the table
+    private final AtomicLong backlog = new AtomicLong();
+    // A relay pass is running, and another pass was requested since it started
+    private final AtomicBoolean relaying = new AtomicBoolean();
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+    private final Timer publishAcknowledged;
+    private final Timer publishFailed;
+    private final Timer eventDelay;
+    
     public OutboxService(OutboxEventRepository outboxEventRepository, 
-                        KafkaTemplate<String, Object> kafkaTemplate,
-                        ObjectMapper objectMapper) {
+                        KafkaTemplate<String, String> kafkaTemplate,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${outbox.publisher.enabled:true}") boolean enabled,
+                        @Value("${outbox.publisher.mode:polling}") String mode,
+                        @Value("${outbox.publisher.batch-size:100}") int batchSize,
+                        @Value("${outbox.publisher.lease:30000}") long lease,
+                        @Value("${outbox.publisher.workers:2}") int workers,
+                        @Value("${outbox.publisher.max-attempts:5}") int maxAttempts,
+                        @Value("${outbox.publisher.retry-delay:5000}") long retryDelay) {
         this.outboxEventRepository = outboxEventRepository;
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.deleteOnWrite = enabled && "cdc".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.leaseSeconds = lease / 1000.0;
+        // Leave half the lease for marking the batch, so results are recorded while the lease is still held
+        this.acknowledgementTimeout = lease / 2;
+        this.maxAttempts = maxAttempts;
+        this.retryDelaySeconds = retryDelay / 1000.0;
+        this.workers = Math.max(1, workers);
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.relayExecutor = Executors.newFixedThreadPool(this.workers, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("Outbox events waiting to be published")
+                .register(meterRegistry);
+        this.publishAcknowledged = publishTimer(meterRegistry, "acknowledged");
+        this.publishFailed = publishTimer(meterRegistry, "failed");
+        this.eventDelay = Timer.builder("outbox.event.delay")
+                .description("Time from an event being written to the outbox until Kafka acknowledged it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+    
+    private static Timer publishTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("outbox.publish")
+                .description("Time from sending an outbox event to Kafka until the broker answered")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "user-service";
+        }
     }
     
+    @Transactional
     public void createOutboxEvent(String aggregateId, String aggregateType, String eventType, Object payload) {
         try {
             String payloadJson = objectMapper.writeValueAsString(payload);
             OutboxEvent outboxEvent = new OutboxEvent(aggregateId, aggregateType, eventType, payloadJson);
             outboxEventRepository.save(outboxEvent);
+            if (deleteOnWrite) {
+                outboxEventRepository.delete(outboxEvent);
+            }
             logger.info("Created outbox event: {} for aggregate: {}", eventType, aggregateId);
         } catch (JsonProcessingException e) {
             logger.error("Failed to serialize payload for outbox event", e);
@@ -44,31 +166,175 @@ public class OutboxService {
         }
     }
     
-    @Scheduled(fixedDelay = 5000) // Run every 5 seconds
+    @Scheduled(fixedDelayString = "${outbox.publisher.interval:30000}")
+    public void pollPendingEvents() {
+        if (!enabled) {
+            return;
+        }
+        backlog.set(outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING));
+        publishPendingEvents();
+    }
+    
+    /**
+     * Drain the outbox. A call made while a pass is running returns at once and makes that pass
+     * go round again, so bursts of wakeups collapse into one pass and none are lost.
+     */
     public void publishPendingEvents() {
-        List<OutboxEvent> pendingEvents = outboxEventRepository.findPendingEventsWithLimit(100);
-        
-        for (OutboxEvent event : pendingEvents) {
+        if (!enabled) {
+            return;
+        }
+        relayRequested.set(true);
+        while (relayRequested.get() && relaying.compareAndSet(false, true)) {
             try {
-                publishEvent(event);
-                markEventAsProcessed(event);
-                logger.info("Published outbox event: {} for aggregate: {}", event.getEventType(), event.getAggregateId());
+                while (relayRequested.getAndSet(false)) {
+                    relay();
+                }
+            } finally {
+                relaying.set(false);
+            }
+        }
+    }
+    
+    private void relay() {
+        List<Callable<Integer>> drains = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            drains.add(this::drain);
+        }
+        int published = 0;
+        try {
+            for (Future<Integer> drained : relayExecutor.invokeAll(drains)) {
+                published += drained.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Outbox relay worker failed", e.getCause());
+        }
+        if (published > 0) {
+            logger.info("Published {} outbox events", published);
+        }
+    }
+    
+    /**
+     * Claim and publish batches until no pending event is left for this worker
+     */
+    private int drain() {
+        int published = 0;
+        while (true) {
+            List<OutboxEvent> batch = new ArrayList<>(
+                    outboxEventRepository.claimPendingEvents(owner, leaseSeconds, batchSize));
+            if (batch.isEmpty()) {
+                return published;
+            }
+            batch.sort(Comparator.comparing(OutboxEvent::getId));
+            published += publishBatch(batch);
+            if (batch.size() < batchSize) {
+                return published;
+            }
+        }
+    }
+    
+    private int publishBatch(List<OutboxEvent> batch) {
+        // Send everything before waiting, so the producer pipelines the batch into a few broker requests
+        Map<OutboxEvent, CompletableFuture<SendResult<String, String>>> sends = new LinkedHashMap<>();
+        List<Long> failed = new ArrayList<>();
+        // Aggregates with a failed event in this batch; their later events go back unsent or unmarked
+        Set<String> failedAggregates = new HashSet<>();
+        List<Long> heldBack = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            if (failedAggregates.contains(aggregateKey(event))) {
+                heldBack.add(event.getId());
+                continue;
+            }
+            try {
+                sends.put(event, publishEvent(event));
             } catch (Exception e) {
-                markEventAsFailed(event);
+                failed.add(event.getId());
+                failedAggregates.add(aggregateKey(event));
                 logger.error("Failed to publish outbox event: {} for aggregate: {}", 
                            event.getEventType(), event.getAggregateId(), e);
             }
         }
-    }
-    
-    private void publishEvent(OutboxEvent event) {
+        
         try {
-            Object payload = objectMapper.readValue(event.getPayload(), Object.class);
-            String topicName = getTopicName(event.getEventType());
-            kafkaTemplate.send(topicName, event.getAggregateId(), payload);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to deserialize event payload", e);
+            CompletableFuture.allOf(sends.values().toArray(CompletableFuture[]::new))
+                    .get(acknowledgementTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Some sends failed; each is checked below
+        } catch (TimeoutException e) {
+            logger.warn("Kafka did not acknowledge an outbox batch within {}ms", acknowledgementTimeout);
+        } catch (InterruptedException e) {
+            // Leave the batch leased; it is claimed again once the lease expires
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        
+        List<Long> processed = new ArrayList<>(sends.size());
+        for (Map.Entry<OutboxEvent, CompletableFuture<SendResult<String, String>>> send : sends.entrySet()) {
+            OutboxEvent event = send.getKey();
+            CompletableFuture<SendResult<String, String>> future = send.getValue();
+            if (failedAggregates.contains(aggregateKey(event))) {
+                // An earlier event of this aggregate is retried, so this one is published again after it
+                heldBack.add(event.getId());
+            } else if (future.isDone() && !future.isCompletedExceptionally()) {
+                processed.add(event.getId());
+                logger.debug("Published outbox event: {} for aggregate: {}", event.getEventType(), event.getAggregateId());
+            } else if (!future.isDone()) {
+                failed.add(event.getId());
+                failedAggregates.add(aggregateKey(event));
+                logger.warn("No acknowledgement for outbox event: {} for aggregate: {}", 
+                           event.getEventType(), event.getAggregateId());
+            } else {
+                failed.add(event.getId());
+                failedAggregates.add(aggregateKey(event));
+                logger.error("Failed to publish outbox event: {} for aggregate: {}", 
+                           event.getEventType(), event.getAggregateId(), future.handle((result, error) -> error).join());
+            }
         }
+        
+        if (!processed.isEmpty()) {
+            int updated = outboxEventRepository.markProcessed(processed, owner);
+            if (updated < processed.size()) {
+                // The lease ran out mid-batch and another worker claimed the rest; they will be published again
+                logger.warn("Outbox lease expired for {} of {} published events", processed.size() - updated, processed.size());
+            }
+        }
+        if (!failed.isEmpty()) {
+            outboxEventRepository.markForRetry(failed, owner, maxAttempts, retryDelaySeconds);
+        }
+        if (!heldBack.isEmpty()) {
+            outboxEventRepository.release(heldBack, owner);
+        }
+        return processed.size();
+    }
+    
+    private static String aggregateKey(OutboxEvent event) {
+        return event.getAggregateType() + ":" + event.getAggregateId();
+    }
+    
+    /**
+     * Send one event to its topic, recording publish time and delay when Kafka answers
+     */
+    CompletableFuture<SendResult<String, String>> publishEvent(OutboxEvent event) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(
+                getTopicName(event.getEventType()), event.getAggregateId(), event.getPayload());
+        record.headers()
+                .add("eventType", event.getEventType().getBytes(StandardCharsets.UTF_8))
+                .add("aggregateType", event.getAggregateType().getBytes(StandardCharsets.UTF_8))
+                .add("outboxEventId", event.getId().toString().getBytes(StandardCharsets.UTF_8));
+        long start = System.nanoTime();
+        LocalDateTime createdAt = event.getCreatedAt();
+        return kafkaTemplate.send(record).whenComplete((result, error) -> {
+            long elapsed = System.nanoTime() - start;
+            if (error != null) {
+                publishFailed.record(elapsed, TimeUnit.NANOSECONDS);
+                return;
+            }
+            publishAcknowledged.record(elapsed, TimeUnit.NANOSECONDS);
+            if (createdAt != null) {
+                eventDelay.record(Duration.between(createdAt, LocalDateTime.now()));
+            }
+        });
     }
     
     private String getTopicName(String eventType) {
@@ -81,14 +347,8 @@ public class OutboxService {
         }
     }
     
-    private void markEventAsProcessed(OutboxEvent event) {
-        event.setStatus(OutboxEvent.OutboxStatus.PROCESSED);
-        event.setProcessedAt(LocalDateTime.now());
-        outboxEventRepository.save(event);
-    }
-    
-    private void markEventAsFailed(OutboxEvent event) {
-        event.setStatus(OutboxEvent.OutboxStatus.FAILED);
-        outboxEventRepository.save(event);
+    @Override
+    public void destroy() {
+        relayExecutor.shutdownNow();
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.example.userservice.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the pgoutput (protocol version 1) messages the outbox CDC relay needs: transaction
+ * boundaries, relation descriptions and inserts. Other message types decode to null.
+ *
+ * Relation descriptions are sent before the first change to each table on a connection, so one
+ * decoder must be used per replication connection.
+ */
+class PgOutputDecoder {
+
+    interface Message {
+    }
+
+    record Begin() implements Message {
+    }
+
+    /**
+     * End of a transaction; endLsn is the position to confirm once its changes are handled
+     */
+    record Commit(long endLsn) implements Message {
+    }
+
+    /**
+     * An inserted row as column name to text value; null values are left out
+     */
+    record Insert(String table, Map<String, String> columns) implements Message {
+    }
+
+    private record Relation(String name, List<String> columns) {
+    }
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    Message decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        switch (type) {
+            case 'B':
+                return new Begin();
+            case 'C':
+                buffer.get(); // flags
+                buffer.getLong(); // commit LSN
+                return new Commit(buffer.getLong());
+            case 'R':
+                readRelation(buffer);
+                return null;
+            case 'I':
+                return readInsert(buffer);
+            default:
+                return null;
+        }
+    }
+
+    private void readRelation(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        readString(buffer); // namespace
+        String name = readString(buffer);
+        buffer.get(); // replica identity
+        int columnCount = buffer.getShort();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get(); // flags
+            columns.add(readString(buffer));
+            buffer.getInt(); // type OID
+            buffer.getInt(); // type modifier
+        }
+        relations.put(relationId, new Relation(name, columns));
+    }
+
+    private Insert readInsert(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        buffer.get(); // 'N', new tuple
+        Relation relation = relations.get(relationId);
+        if (relation == null) {
+            throw new IllegalStateException("Insert for relation " + relationId + " before its description");
+        }
+
+        int columnCount = buffer.getShort();
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            char kind = (char) buffer.get();
+            if (kind == 't') {
+                byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                columns.put(relation.columns().get(i), new String(value, StandardCharsets.UTF_8));
+            }
+            // 'n' is null and 'u' an unchanged TOAST value, which an insert never has
+        }
+        return new Insert(relation.name(), columns);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // Strings are null-terminated
+        }
+        byte[] bytes = new byte[buffer.position() - start - 1];
+        buffer.position(start);
+        buffer.get(bytes);
+        buffer.get(); // terminator
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.userservice.service;
 import com.example.userservice.dto.ProfileUpdateRequest;
 import com.example.userservice.entity.User;
 import com.example.userservice.event.ProfileUpdatedEvent;
+import com.example.userservice.event.UserEvent;
 import com.example.userservice.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,11 @@ public class UserService {
     
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     
+    /**
+     * Most digits in a generated username suffix; auth-service never suffixes past 9999
+     */
+    public static final int MAX_SUFFIX_DIGITS = 4;
+    
     private final UserRepository userRepository;
     private final OutboxService outboxService;
     
@@ -38,6 +44,7 @@ public class UserService {
         }
         
         User savedUser = userRepository.save(user);
+        publishUserEvent(UserEvent.USER_CREATED, savedUser);
         logger.info("Created new user: {}", savedUser.getUsername());
         return savedUser;
     }
@@ -108,6 +115,7 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        publishUserEvent(UserEvent.USER_UPDATED, updatedUser);
         logger.info("Updated user: {}", updatedUser.getUsername());
         return updatedUser;
     }
@@ -117,6 +125,7 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         
         userRepository.delete(user);
+        publishUserEvent(UserEvent.USER_DELETED, user);
         logger.info("Deleted user: {}", user.getUsername());
     }
     
@@ -125,6 +134,17 @@ public class UserService {
         return userRepository.existsByUsername(username);
     }
     
+    /**
+     * Usernames equal to base or of the form stem_<at most MAX_SUFFIX_DIGITS characters>, in one indexed
+     * prefix query; the length bound keeps a popular stem from returning every stem_* username
+     */
+    @Transactional(readOnly = true)
+    public List<String> findUsernamesByBaseOrStem(String base, String stem) {
+        String escapedStem = stem.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return userRepository.findUsernamesByBaseOrStemPattern(base, escapedStem + "!_%",
+                stem.length() + 1 + MAX_SUFFIX_DIGITS);
+    }
+    
     @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
@@ -167,6 +187,7 @@ public class UserService {
         
         // Save user first
         User updatedUser = userRepository.save(user);
+        publishUserEvent(UserEvent.USER_UPDATED, updatedUser);
         
         // Create ProfileUpdated event with address information
         ProfileUpdatedEvent.AddressInfo addressInfo = null;
@@ -202,4 +223,8 @@ public class UserService {
         logger.info("Updated user profile and created outbox event: {}", updatedUser.getUsername());
         return updatedUser;
     }
+    
+    private void publishUserEvent(String type, User user) {
+        outboxService.createOutboxEvent(user.getId().toString(), "User", type, new UserEvent(type, user));
+    }
 }
\ No newline at end of file
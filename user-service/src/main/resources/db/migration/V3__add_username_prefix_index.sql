@@ -0,0 +1,2 @@
+-- Prefix index so username availability (LIKE 'base\_%') is an index range scan under any collation
+CREATE INDEX idx_users_username_prefix ON users (username varchar_pattern_ops);
@@ -0,0 +1,6 @@
+-- Lease on outbox events so several relay workers and instances can publish without overlap
+ALTER TABLE outbox_events ADD COLUMN claimed_by VARCHAR(100);
+ALTER TABLE outbox_events ADD COLUMN claimed_until TIMESTAMPTZ;
+
+-- Pending events in publishing order; published events drop out of the index
+CREATE INDEX idx_outbox_events_pending ON outbox_events (id) WHERE status = 'PENDING';
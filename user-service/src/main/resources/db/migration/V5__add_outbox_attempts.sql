@@ -0,0 +1,2 @@
+-- Publish attempts per outbox event; unacknowledged events are retried until they reach the limit
+ALTER TABLE outbox_events ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Logical replication publication read by the outbox relay in cdc mode (outbox.publisher.mode=cdc).
+-- Only inserts are published; cdc mode deletes each row in the transaction that wrote it.
+CREATE PUBLICATION outbox_publication FOR TABLE outbox_events WITH (publish = 'insert');
@@ -0,0 +1,130 @@
+package com.example.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgOutputDecoderTest {
+
+    private static final int RELATION_ID = 16385;
+
+    private PgOutputDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new PgOutputDecoder();
+    }
+
+    @Test
+    void testDecode_Begin_ShouldReturnBegin() throws IOException {
+        Message message = new Message('B');
+        message.out.writeLong(0x16B3748L); // final LSN
+        message.out.writeLong(0L); // commit timestamp
+        message.out.writeInt(750); // xid
+
+        assertInstanceOf(PgOutputDecoder.Begin.class, decoder.decode(message.toBuffer()));
+    }
+
+    @Test
+    void testDecode_Commit_ShouldReturnEndLsn() throws IOException {
+        Message message = new Message('C');
+        message.out.writeByte(0); // flags
+        message.out.writeLong(0x16B3748L); // commit LSN
+        message.out.writeLong(0x16B3778L); // end LSN
+        message.out.writeLong(0L); // commit timestamp
+
+        PgOutputDecoder.Message decoded = decoder.decode(message.toBuffer());
+
+        assertEquals(new PgOutputDecoder.Commit(0x16B3778L), decoded);
+    }
+
+    @Test
+    void testDecode_InsertAfterRelation_ShouldMapColumnsByName() throws IOException {
+        assertNull(decoder.decode(relation("outbox_events", "id", "aggregate_id", "payload", "processed_at")));
+
+        Message insert = new Message('I');
+        insert.out.writeInt(RELATION_ID);
+        insert.out.writeByte('N');
+        insert.out.writeShort(4);
+        text(insert, "42");
+        text(insert, "7");
+        text(insert, "{\"name\":\"Zo\u00eb\"}");
+        insert.out.writeByte('n');
+
+        PgOutputDecoder.Message decoded = decoder.decode(insert.toBuffer());
+
+        PgOutputDecoder.Insert row = assertInstanceOf(PgOutputDecoder.Insert.class, decoded);
+        assertEquals("outbox_events", row.table());
+        assertEquals(Map.of("id", "42", "aggregate_id", "7", "payload", "{\"name\":\"Zo\u00eb\"}"), row.columns());
+    }
+
+    @Test
+    void testDecode_InsertBeforeRelation_ShouldFail() throws IOException {
+        Message insert = new Message('I');
+        insert.out.writeInt(RELATION_ID);
+        insert.out.writeByte('N');
+        insert.out.writeShort(0);
+
+        assertThrows(IllegalStateException.class, () -> decoder.decode(insert.toBuffer()));
+    }
+
+    @Test
+    void testDecode_OtherMessageTypes_ShouldReturnNull() throws IOException {
+        Message update = new Message('U');
+        update.out.writeInt(RELATION_ID);
+
+        assertNull(decoder.decode(update.toBuffer()));
+    }
+
+    private static ByteBuffer relation(String table, String... columns) throws IOException {
+        Message message = new Message('R');
+        message.out.writeInt(RELATION_ID);
+        string(message, "public");
+        string(message, table);
+        message.out.writeByte('d'); // replica identity
+        message.out.writeShort(columns.length);
+        for (String column : columns) {
+            message.out.writeByte(0); // flags
+            string(message, column);
+            message.out.writeInt(25); // text type OID
+            message.out.writeInt(-1); // type modifier
+        }
+        return message.toBuffer();
+    }
+
+    private static void string(Message message, String value) throws IOException {
+        message.out.write(value.getBytes(StandardCharsets.UTF_8));
+        message.out.writeByte(0);
+    }
+
+    private static void text(Message message, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        message.out.writeByte('t');
+        message.out.writeInt(bytes.length);
+        message.out.write(bytes);
+    }
+
+    /**
+     * A pgoutput message being written, starting with its type byte
+     */
+    private static final class Message {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private Message(char type) throws IOException {
+            out.writeByte(type);
+        }
+
+        private ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+    }
+}